@@ -0,0 +1,75 @@
+package com.brambolt.text;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class TemplatesBenchmark {
+
+    /**
+     * The number of placeholders in the template.
+     */
+    @Param({ "10", "100", "1000" })
+    public int placeholders;
+
+    @Param({ "@", "%%" })
+    public String delimiter;
+
+    private String template;
+
+    private Map<String, Object> bindings;
+
+    private CompiledTemplate compiled;
+
+    @Setup
+    public void setUp() {
+        StringBuilder builder = new StringBuilder();
+        bindings = new HashMap<>();
+        for (int i = 0; i < placeholders; ++i) {
+            // Every tenth placeholder is unbound and left in place:
+            builder.append("Some text before placeholder ").append(i).append(": ")
+                .append(delimiter).append("key").append(i).append(delimiter).append('\n');
+            if (0 != i % 10)
+                bindings.put("key" + i, "value" + i);
+        }
+        template = builder.toString();
+        compiled = Templates.compile(template, delimiter);
+    }
+
+    @Benchmark
+    public String bind() {
+        return Templates.bind(template, bindings, delimiter);
+    }
+
+    @Benchmark
+    public String renderCompiled() {
+        return compiled.render(bindings);
+    }
+
+    @Benchmark
+    public StringBuilder renderStreaming() throws IOException {
+        StringBuilder out = new StringBuilder(template.length());
+        Templates.render(new StringReader(template), bindings, delimiter, out);
+        return out;
+    }
+}
@@ -0,0 +1,102 @@
+package com.brambolt.util;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Map;
+import java.util.Properties;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class MapsBenchmark {
+
+    /**
+     * The number of property names in the configuration.
+     */
+    @Param({ "100", "10000" })
+    public int size;
+
+    /**
+     * The number of segments per property name.
+     */
+    @Param({ "2", "5" })
+    public int depth;
+
+    private Properties properties;
+
+    private Map<String, Object> existing;
+
+    private PersistentMap<String, Object> persistent;
+
+    private Map<String, Object> overwrites;
+
+    private IndexedConfig indexed;
+
+    private String[] keys;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(17);
+        properties = new Properties();
+        Properties overwriting = new Properties();
+        keys = new String[size];
+        for (int i = 0; i < size; ++i) {
+            StringBuilder key = new StringBuilder();
+            for (int d = 1; d < depth; ++d)
+                key.append("segment").append(random.nextInt(8)).append('.');
+            key.append("leaf").append(i);
+            keys[i] = key.toString();
+            properties.setProperty(keys[i], "value" + i);
+            // One in a hundred values is overwritten:
+            if (0 == i % 100)
+                overwriting.setProperty(keys[i], "overwritten" + i);
+        }
+        existing = Maps.convert(properties);
+        persistent = Maps.persistent(existing);
+        overwrites = Maps.convert(overwriting);
+        indexed = Maps.index(existing);
+    }
+
+    @Benchmark
+    public Map<String, Object> convert() {
+        return Maps.convert(properties);
+    }
+
+    @Benchmark
+    public Map<String, Object> merge() {
+        return Maps.merge(existing, overwrites);
+    }
+
+    @Benchmark
+    public Map<String, Object> mergePersistent() {
+        return Maps.merge(persistent, overwrites);
+    }
+
+    @Benchmark
+    public void segmentedGet(Blackhole blackhole) {
+        for (String key : keys)
+            blackhole.consume(Maps.segmentedGet(existing, key));
+    }
+
+    @Benchmark
+    public void indexedGet(Blackhole blackhole) {
+        for (String key : keys)
+            blackhole.consume(indexed.get(key));
+    }
+}
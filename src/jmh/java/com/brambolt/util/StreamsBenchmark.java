@@ -0,0 +1,60 @@
+package com.brambolt.util;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.Charset;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class StreamsBenchmark {
+
+    /**
+     * The number of characters in the stream.
+     */
+    @Param({ "1024", "65536", "1048576" })
+    public int size;
+
+    @Param({ "UTF-8", "ISO-8859-1", "UTF-16" })
+    public String charset;
+
+    private Charset cs;
+
+    private byte[] bytes;
+
+    @Setup
+    public void setUp() {
+        cs = Charset.forName(charset);
+        StringBuilder builder = new StringBuilder(size);
+        String line = "The quick brown fox jumps over the lazy dog, caf\u00e9 cr\u00e8me br\u00fbl\u00e9e\n";
+        while (builder.length() < size)
+            builder.append(line);
+        builder.setLength(size);
+        bytes = builder.toString().getBytes(cs);
+    }
+
+    @Benchmark
+    public String scan() {
+        return Streams.scan(new ByteArrayInputStream(bytes), cs);
+    }
+
+    @Benchmark
+    public String scanReusingBuffer() {
+        return Streams.scan(new ByteArrayInputStream(bytes), cs, true);
+    }
+}
@@ -0,0 +1,83 @@
+package com.brambolt.util.function;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares composed boxed and primitive three-argument functions. Run with
+ * <code>-PjmhProfilers=gc</code> to compare the bytes allocated per operation
+ * (<code>gc.alloc.rate.norm</code>); the operands are chosen outside the
+ * <code>Integer</code> cache so the boxed variant allocates.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class TriFunctionBenchmark {
+
+    /**
+     * The number of applications per operation.
+     */
+    @Param({ "1024" })
+    public int size;
+
+    private int[] operands;
+
+    private TriFunction<Integer, Integer, Integer, Integer> boxed;
+
+    private IntTriFunction<Integer> intTriFunction;
+
+    private IntTernaryOperator intTernaryOperator;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(17);
+        operands = new int[size + 2];
+        for (int i = 0; i < operands.length; ++i)
+            operands[i] = 1000 + random.nextInt(1000000);
+        TriFunction<Integer, Integer, Integer, Integer> sum = (t, u, s) -> t + u + s;
+        boxed = sum.andThen(r -> r * 31);
+        IntTriFunction<Integer> intSum = (t, u, s) -> t + u + s;
+        intTriFunction = intSum.andThen(r -> r * 31);
+        IntTernaryOperator intOperatorSum = (t, u, s) -> t + u + s;
+        intTernaryOperator = intOperatorSum.andThen(r -> r * 31);
+    }
+
+    @Benchmark
+    public int triFunction() {
+        int result = 0;
+        for (int i = 0; i < size; ++i)
+            result += boxed.apply(operands[i], operands[i + 1], operands[i + 2]);
+        return result;
+    }
+
+    @Benchmark
+    public int intTriFunction() {
+        int result = 0;
+        for (int i = 0; i < size; ++i)
+            result += intTriFunction.apply(operands[i], operands[i + 1], operands[i + 2]);
+        return result;
+    }
+
+    @Benchmark
+    public int intTernaryOperator() {
+        int result = 0;
+        for (int i = 0; i < size; ++i)
+            result += intTernaryOperator.applyAsInt(operands[i], operands[i + 1], operands[i + 2]);
+        return result;
+    }
+}
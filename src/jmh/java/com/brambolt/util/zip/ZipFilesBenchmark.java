@@ -0,0 +1,133 @@
+package com.brambolt.util.zip;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.GatheringByteChannel;
+import java.nio.charset.Charset;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Run with <code>-PjmhProfilers=gc</code> to compare the bytes allocated per
+ * operation (<code>gc.alloc.rate.norm</code>) of the byte array, buffer and
+ * channel output paths.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class ZipFilesBenchmark {
+
+    @Param({ "1", "16", "256" })
+    public int entries;
+
+    /**
+     * The number of characters per entry.
+     */
+    @Param({ "1024", "65536" })
+    public int entrySize;
+
+    @Param({ "UTF-8", "UTF-16" })
+    public String charset;
+
+    private Charset cs;
+
+    private String[] content;
+
+    private String[] paths;
+
+    private byte[] zip;
+
+    private final DiscardingChannel sink = new DiscardingChannel();
+
+    @Setup
+    public void setUp() throws IOException {
+        cs = Charset.forName(charset);
+        content = new String[entries];
+        paths = new String[entries];
+        for (int i = 0; i < entries; ++i) {
+            StringBuilder builder = new StringBuilder(entrySize);
+            while (builder.length() < entrySize)
+                builder.append("entry ").append(i).append(" line ").append(builder.length()).append('\n');
+            builder.setLength(entrySize);
+            content[i] = builder.toString();
+            paths[i] = "dir" + (i % 8) + "/entry" + i + ".txt";
+        }
+        zip = ZipFiles.bytes(content, paths, cs);
+    }
+
+    @Benchmark
+    public byte[] bytes() throws IOException {
+        return ZipFiles.bytes(content, paths, cs);
+    }
+
+    @Benchmark
+    public ByteBuffer buffer() throws IOException {
+        return ZipFiles.buffer(content, paths, cs, false);
+    }
+
+    @Benchmark
+    public long write() throws IOException {
+        return ZipFiles.write(content, paths, cs, sink);
+    }
+
+    @Benchmark
+    public byte[] bytesParallel() throws IOException {
+        return ZipFiles.bytes(content, paths, cs, ForkJoinPool.commonPool());
+    }
+
+    @Benchmark
+    public String[] scan() throws IOException {
+        return ZipFiles.scan(zip, cs);
+    }
+
+    /**
+     * Consumes the written bytes, so the channel benchmark measures the
+     * zip output path rather than the file system.
+     */
+    private static class DiscardingChannel implements GatheringByteChannel {
+
+        @Override
+        public long write(ByteBuffer[] srcs, int offset, int length) {
+            long written = 0L;
+            for (int i = offset; i < offset + length; ++i)
+                written += write(srcs[i]);
+            return written;
+        }
+
+        @Override
+        public long write(ByteBuffer[] srcs) {
+            return write(srcs, 0, srcs.length);
+        }
+
+        @Override
+        public int write(ByteBuffer src) {
+            int remaining = src.remaining();
+            src.position(src.limit());
+            return remaining;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return true;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
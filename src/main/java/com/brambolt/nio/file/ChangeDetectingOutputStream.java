@@ -0,0 +1,205 @@
+/*
+ * Copyright 2017-2020 Brambolt ehf.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.brambolt.nio.file;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Writes to a file only where the written bytes differ from its content.
+ *
+ * <p>The written bytes are compared with the existing content of the file,
+ * as they are written. While they match, nothing is written. At the first
+ * difference, the file is overwritten from that position on, and truncated
+ * to the written length when the stream is committed. A file whose content
+ * does not change is never written to, so its modification time is kept.</p>
+ *
+ * <p>Call {@link #commit()} once all the content has been written. Closing
+ * a stream that was not committed, for example when producing the content
+ * failed, does not truncate the file, so a file that matched up to the
+ * failure keeps its content. A file created by the stream is deleted.</p>
+ *
+ * <p>The stream is also a byte channel, so a {@link ChannelWriter} can
+ * encode into it without an intermediate byte array.</p>
+ *
+ * <p>Like truncating and rewriting the file, the update is not atomic.
+ * Nothing is buffered beyond a read buffer, so memory use does not depend
+ * on the size of the file.</p>
+ */
+public class ChangeDetectingOutputStream extends OutputStream implements WritableByteChannel {
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private final Path path;
+
+    private final FileChannel channel;
+
+    private final ByteBuffer existing = ByteBuffer.allocate(BUFFER_SIZE);
+
+    private final byte[] single = new byte[1];
+
+    /**
+     * The number of bytes written, whether they matched or not.
+     */
+    private long position = 0L;
+
+    private final boolean created;
+
+    private boolean changed;
+
+    private boolean closed = false;
+
+    /**
+     * Opens the parameter file for comparing and writing, creating it if it
+     * does not exist.
+     *
+     * @param path The file to write to
+     * @throws IOException If unable to open the file
+     */
+    public ChangeDetectingOutputStream(Path path) throws IOException {
+        this.path = path;
+        this.created = !java.nio.file.Files.exists(path);
+        this.changed = created;
+        this.channel = FileChannel.open(path,
+            StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.CREATE);
+        this.existing.flip(); // Empty, to be filled on the first write
+    }
+
+    /**
+     * @return True iff the file was created or its content was changed;
+     *         only final after the stream is committed
+     */
+    public boolean isChanged() {
+        return changed;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        single[0] = (byte) b;
+        write(single, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        write(ByteBuffer.wrap(b, off, len));
+    }
+
+    /**
+     * Compares and writes the remaining bytes of the parameter buffer, which
+     * may be a direct buffer.
+     *
+     * @param src The bytes to write
+     * @return The number of bytes written, which is all the remaining bytes
+     * @throws IOException If unable to read or write the file
+     */
+    @Override
+    public int write(ByteBuffer src) throws IOException {
+        if (closed)
+            throw new ClosedChannelException();
+        int len = src.remaining();
+        if (!changed) {
+            int matched = compare(src);
+            position += matched;
+            if (!src.hasRemaining())
+                return len;
+            // The content differs from here on:
+            changed = true;
+            channel.position(position);
+        }
+        position += src.remaining();
+        while (src.hasRemaining())
+            channel.write(src);
+        return len;
+    }
+
+    /**
+     * Consumes the leading bytes of the buffer that match the existing
+     * content.
+     *
+     * @return The number of matching bytes
+     */
+    private int compare(ByteBuffer src) throws IOException {
+        int matched = 0;
+        while (src.hasRemaining()) {
+            if (!existing.hasRemaining()) {
+                existing.clear();
+                int read = channel.read(existing);
+                existing.flip();
+                if (read <= 0)
+                    return matched; // The existing content is shorter
+            }
+            int n = Math.min(existing.remaining(), src.remaining());
+            int start = existing.position();
+            int from = src.position();
+            byte[] array = existing.array();
+            int i = 0;
+            while (i < n && array[start + i] == src.get(from + i))
+                ++i;
+            existing.position(start + i);
+            src.position(from + i);
+            matched += i;
+            if (i < n)
+                return matched;
+        }
+        return matched;
+    }
+
+    @Override
+    public boolean isOpen() {
+        return !closed;
+    }
+
+    /**
+     * Truncates the file to the written length, if it has changed or the
+     * existing content was longer, and closes it.
+     *
+     * @throws IOException If unable to truncate or close the file
+     */
+    public void commit() throws IOException {
+        if (closed)
+            throw new ClosedChannelException();
+        closed = true;
+        try {
+            if (position < channel.size()) {
+                changed = true;
+                channel.truncate(position);
+            }
+        } finally {
+            channel.close();
+        }
+    }
+
+    /**
+     * Closes the file without truncating it, unless the stream has been
+     * committed. A file created by the stream is deleted.
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed)
+            return;
+        closed = true;
+        channel.close();
+        if (created)
+            java.nio.file.Files.deleteIfExists(path);
+    }
+}
@@ -0,0 +1,266 @@
+/*
+ * Copyright 2017-2020 Brambolt ehf.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.brambolt.nio.file;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * A writer that encodes characters straight into a pooled byte buffer and
+ * writes the buffer to a channel.
+ *
+ * <p>Unlike a buffered <code>OutputStreamWriter</code>, there is no
+ * buffered stream to copy the encoded bytes into, and the byte buffers are
+ * pooled, so writers that are opened and closed often do not allocate
+ * their buffers each time. Large character arrays are encoded without
+ * copying them.</p>
+ *
+ * <p>The buffers are heap buffers rather than direct buffers: the charset
+ * encoders only take their fast path between arrays, and encoding into a
+ * direct buffer is slower than the copy the channel makes into its own
+ * direct buffer when writing.</p>
+ *
+ * <p>Malformed and unmappable characters are replaced, as with an
+ * <code>OutputStreamWriter</code>. A writer is not thread-safe.</p>
+ */
+public class ChannelWriter extends Writer {
+
+    /**
+     * The capacity of the pooled byte buffers.
+     */
+    public static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final int CHAR_BUFFER_SIZE = 8 * 1024;
+
+    /**
+     * The maximum number of buffers kept in the pool; more buffers than
+     * this are left to the garbage collector when released.
+     */
+    private static final int MAX_POOLED = 16;
+
+    private static final BlockingQueue<ByteBuffer> pool = new ArrayBlockingQueue<>(MAX_POOLED);
+
+    /**
+     * Opens a writer that creates or truncates the parameter file.
+     *
+     * @param path The file to write to
+     * @param charset The charset to encode with
+     * @return The writer
+     * @throws IOException If unable to open the file
+     * @throws UnsupportedOperationException If the charset does not support
+     *                                       encoding; the file is closed
+     */
+    public static ChannelWriter open(Path path, Charset charset) throws IOException {
+        FileChannel channel = FileChannel.open(path,
+            StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        try {
+            return new ChannelWriter(channel, charset);
+        } catch (RuntimeException | Error x) {
+            channel.close();
+            throw x;
+        }
+    }
+
+    private static ByteBuffer acquire() {
+        ByteBuffer buffer = pool.poll();
+        return null != buffer ? buffer : ByteBuffer.allocate(BUFFER_SIZE);
+    }
+
+    private static void release(ByteBuffer buffer) {
+        buffer.clear();
+        pool.offer(buffer);
+    }
+
+    private final WritableByteChannel channel;
+
+    private final CharsetEncoder encoder;
+
+    /**
+     * Strings and small arrays are gathered here before they are encoded,
+     * so the encoder works between arrays; a trailing high surrogate also
+     * waits here for its low surrogate.
+     */
+    private final CharBuffer chars = CharBuffer.allocate(CHAR_BUFFER_SIZE);
+
+    private ByteBuffer bytes;
+
+    private boolean finished = false;
+
+    /**
+     * Creates a writer on the parameter channel. The channel is closed when
+     * the writer is closed.
+     *
+     * @param channel The channel to write to
+     * @param charset The charset to encode with
+     */
+    public ChannelWriter(WritableByteChannel channel, Charset charset) {
+        this.channel = channel;
+        this.encoder = charset.newEncoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        this.bytes = acquire();
+    }
+
+    private void ensureOpen() throws IOException {
+        if (null == bytes)
+            throw new IOException("Writer closed");
+        if (finished)
+            throw new IOException("Writer finished");
+    }
+
+    @Override
+    public void write(int c) throws IOException {
+        ensureOpen();
+        if (!chars.hasRemaining())
+            encodeChars(false);
+        chars.put((char) c);
+    }
+
+    @Override
+    public void write(char[] cbuf, int off, int len) throws IOException {
+        ensureOpen();
+        if (0 == chars.position() && CHAR_BUFFER_SIZE <= len) {
+            encodeLarge(CharBuffer.wrap(cbuf, off, len));
+            return;
+        }
+        while (0 < len) {
+            if (!chars.hasRemaining())
+                encodeChars(false);
+            int n = Math.min(chars.remaining(), len);
+            chars.put(cbuf, off, n);
+            off += n;
+            len -= n;
+        }
+    }
+
+    @Override
+    public void write(String str, int off, int len) throws IOException {
+        ensureOpen();
+        while (0 < len) {
+            if (!chars.hasRemaining())
+                encodeChars(false);
+            int n = Math.min(chars.remaining(), len);
+            int position = chars.position();
+            str.getChars(off, off + n, chars.array(), position);
+            chars.position(position + n);
+            off += n;
+            len -= n;
+        }
+    }
+
+    /**
+     * Writes the range without first copying it to a string.
+     */
+    @Override
+    public Writer append(CharSequence csq, int start, int end) throws IOException {
+        CharSequence s = null != csq ? csq : "null"; // As Writer.append
+        if (s instanceof String) {
+            write((String) s, start, end - start);
+            return this;
+        }
+        ensureOpen();
+        for (int i = start; i < end; ++i) {
+            if (!chars.hasRemaining())
+                encodeChars(false);
+            chars.put(s.charAt(i));
+        }
+        return this;
+    }
+
+    private void encodeLarge(CharBuffer in) throws IOException {
+        encode(in, false);
+        // Keep a trailing high surrogate for the next write:
+        chars.put(in);
+    }
+
+    private void encodeChars(boolean endOfInput) throws IOException {
+        chars.flip();
+        encode(chars, endOfInput);
+        chars.compact();
+    }
+
+    private void encode(CharBuffer in, boolean endOfInput) throws IOException {
+        while (true) {
+            CoderResult result = encoder.encode(in, bytes, endOfInput);
+            if (result.isUnderflow())
+                return;
+            if (result.isOverflow())
+                drain();
+            else
+                result.throwException();
+        }
+    }
+
+    private void drain() throws IOException {
+        bytes.flip();
+        while (bytes.hasRemaining())
+            channel.write(bytes);
+        bytes.clear();
+    }
+
+    /**
+     * Encodes and writes the gathered characters, except a trailing high
+     * surrogate.
+     */
+    @Override
+    public void flush() throws IOException {
+        ensureOpen();
+        encodeChars(false);
+        drain();
+    }
+
+    /**
+     * Encodes and writes all the gathered characters, ending the input,
+     * without closing the channel. Nothing can be written afterwards.
+     *
+     * @throws IOException If unable to write to the channel
+     */
+    public void finish() throws IOException {
+        ensureOpen();
+        encodeChars(true);
+        while (encoder.flush(bytes).isOverflow())
+            drain();
+        drain();
+        finished = true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (null == bytes)
+            return;
+        try {
+            if (!finished)
+                finish();
+        } finally {
+            release(bytes);
+            bytes = null;
+            channel.close();
+        }
+    }
+}
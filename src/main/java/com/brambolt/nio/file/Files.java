@@ -16,15 +16,45 @@
 
 package com.brambolt.nio.file;
 
+import java.io.BufferedReader;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileStore;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
 
 public class Files {
 
+    /**
+     * A suggested size in bytes above which to memory-map files, for
+     * {@link #readString(Path, Charset, long)}.
+     */
+    public static final long DEFAULT_MAPPING_THRESHOLD = 16L * 1024 * 1024;
+
+    /**
+     * The size of the windows mapped when streaming lines from a file.
+     */
+    static final int MAPPING_WINDOW_SIZE = 64 * 1024 * 1024;
+
     /**
      * <p>Reads an entire file into a string.</p>
      *
@@ -48,6 +78,7 @@ public class Files {
      * @param encoding The encoding to read with
      * @return The content at the parameter path as a string in the encoding
      * @throws IOException If unable to read the string content
+     * @see #readString(Path, Charset, long)
      */
     public static String readString(Path path, Charset encoding) throws IOException {
         return new String(
@@ -55,6 +86,220 @@ public class Files {
             encoding);
     }
 
+    /**
+     * <p>Reads an entire file into a string, memory-mapping the file if it is
+     * larger than the parameter threshold.</p>
+     *
+     * <p>A mapped file is mapped in windows of 64 MB and decoded window by
+     * window into a builder sized for the expected content, so the file
+     * content is never copied onto the heap as bytes and no worst-case
+     * character buffer is allocated. Building the string still copies the
+     * characters once. For large files, use
+     * {@link #readCharSequence(Path, Charset)} or {@link #lines(Path, Charset)}
+     * instead, which do not build a string.</p>
+     *
+     * <p>The last mapped window is only released when it is garbage
+     * collected. Until then, on Windows, the file can't be deleted or
+     * replaced.</p>
+     *
+     * @param path The path to read from
+     * @param encoding The encoding to read with
+     * @param mappingThreshold The file size in bytes above which to map the
+     *                         file, for example {@link #DEFAULT_MAPPING_THRESHOLD}
+     * @return The content at the parameter path as a string in the encoding
+     * @throws IOException If unable to read the string content
+     */
+    public static String readString(Path path, Charset encoding, long mappingThreshold) throws IOException {
+        if (java.nio.file.Files.size(path) <= mappingThreshold)
+            return readString(path, encoding);
+        CharsetDecoder decoder = newDecoder(encoding);
+        try (MappedInputStream is = new MappedInputStream(FileChannel.open(path, StandardOpenOption.READ));
+             Reader reader = new InputStreamReader(is, decoder)) {
+            long capacity = (long) Math.ceil(is.size * (double) decoder.averageCharsPerByte());
+            if (Integer.MAX_VALUE - 8 < capacity)
+                throw new OutOfMemoryError("File is too large for a string: " + path);
+            StringBuilder builder = new StringBuilder((int) capacity);
+            char[] buffer = new char[8192];
+            int count;
+            while (-1 != (count = reader.read(buffer)))
+                builder.append(buffer, 0, count);
+            return builder.toString();
+        }
+    }
+
+    private static CharsetDecoder newDecoder(Charset encoding) {
+        return encoding.newDecoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    }
+
+    /**
+     * <p>Memory-maps a file and presents its content as a character sequence,
+     * without building a string on the heap.</p>
+     *
+     * <p>For US-ASCII and ISO-8859-1 the sequence reads the characters
+     * straight from the mapping. Other encodings can't be indexed without
+     * decoding, so the file is decoded once into a direct (off-heap) buffer.</p>
+     *
+     * <p>As with {@link #readString(Path, Charset, long)}, the mapping is only
+     * released when it is garbage collected.</p>
+     *
+     * @param path The path to read from
+     * @param encoding The encoding to read with
+     * @return The content at the parameter path as a character sequence
+     * @throws IOException If unable to map or decode the file
+     */
+    public static CharSequence readCharSequence(Path path, Charset encoding) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (Integer.MAX_VALUE < size)
+                throw new OutOfMemoryError("File is too large for a character sequence: " + path);
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            if (StandardCharsets.ISO_8859_1.equals(encoding) || StandardCharsets.US_ASCII.equals(encoding))
+                return new MappedCharSequence(mapped, StandardCharsets.US_ASCII.equals(encoding));
+            CharsetDecoder decoder = newDecoder(encoding);
+            long capacity = (long) Math.ceil(size * (double) decoder.maxCharsPerByte());
+            if (Integer.MAX_VALUE / 2 < capacity)
+                throw new OutOfMemoryError("File is too large for a character sequence: " + path);
+            CharBuffer chars = ByteBuffer.allocateDirect((int) capacity * 2).asCharBuffer();
+            CoderResult result = decoder.decode(mapped, chars, true);
+            if (!result.isUnderflow())
+                result.throwException();
+            result = decoder.flush(chars);
+            if (!result.isUnderflow())
+                result.throwException();
+            chars.flip();
+            return chars;
+        }
+    }
+
+    /**
+     * A zero-copy character sequence over a mapping of single-byte characters.
+     */
+    private static class MappedCharSequence implements CharSequence {
+
+        private final ByteBuffer bytes;
+
+        private final boolean ascii;
+
+        MappedCharSequence(ByteBuffer bytes, boolean ascii) {
+            this.bytes = bytes;
+            this.ascii = ascii;
+        }
+
+        @Override
+        public int length() {
+            return bytes.remaining();
+        }
+
+        @Override
+        public char charAt(int index) {
+            byte b = bytes.get(bytes.position() + index);
+            return (ascii && b < 0) ? '\uFFFD' : (char) (b & 0xff);
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            if (start < 0 || end > length() || start > end)
+                throw new IndexOutOfBoundsException("[" + start + ", " + end + ")");
+            ByteBuffer slice = bytes.duplicate();
+            slice.position(bytes.position() + start);
+            slice.limit(bytes.position() + end);
+            return new MappedCharSequence(slice.slice(), ascii);
+        }
+
+        @Override
+        public String toString() {
+            return new StringBuilder(length()).append(this).toString();
+        }
+    }
+
+    /**
+     * <p>Streams the lines of a file through a memory mapping.</p>
+     *
+     * <p>The file is mapped in windows of 64 MB and decoded as the stream is
+     * consumed, so only the current line is held on the heap, and files of
+     * any size can be read. The line terminators are those recognized by
+     * {@link BufferedReader#readLine()}.</p>
+     *
+     * <p>The returned stream holds the file open and must be closed. The
+     * last mapped window is only released when it is garbage collected.</p>
+     *
+     * @param path The path to read from
+     * @param encoding The encoding to read with
+     * @return The lines of the file
+     * @throws IOException If unable to open the file
+     */
+    public static Stream<String> lines(Path path, Charset encoding) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(
+            new MappedInputStream(FileChannel.open(path, StandardOpenOption.READ)),
+            newDecoder(encoding)));
+        return reader.lines().onClose(() -> {
+            try {
+                reader.close();
+            } catch (IOException x) {
+                throw new UncheckedIOException(x);
+            }
+        });
+    }
+
+    /**
+     * An input stream that reads a file channel through successive mappings.
+     */
+    private static class MappedInputStream extends InputStream {
+
+        private final FileChannel channel;
+
+        private final long size;
+
+        private long position = 0L;
+
+        private MappedByteBuffer window = null;
+
+        MappedInputStream(FileChannel channel) throws IOException {
+            this.channel = channel;
+            this.size = channel.size();
+        }
+
+        private boolean ensureWindow() throws IOException {
+            if (null != window && window.hasRemaining())
+                return true;
+            if (size <= position)
+                return false;
+            long length = Math.min(MAPPING_WINDOW_SIZE, size - position);
+            window = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+            position += length;
+            return true;
+        }
+
+        @Override
+        public int read() throws IOException {
+            return ensureWindow() ? window.get() & 0xff : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (0 == len)
+                return 0;
+            if (!ensureWindow())
+                return -1;
+            int count = Math.min(len, window.remaining());
+            window.get(b, off, count);
+            return count;
+        }
+
+        @Override
+        public int available() {
+            return null == window ? 0 : window.remaining();
+        }
+
+        @Override
+        public void close() throws IOException {
+            window = null;
+            channel.close();
+        }
+    }
+
     /**
      * <p>Reads an entire file into a string.</p>
      *
@@ -70,9 +315,118 @@ public class Files {
     }
 
     public static Path createTempCopy(Path path) throws IOException {
+        return createTempCopy(path, false);
+    }
+
+    /**
+     * Copies the parameter file to a new temporary file.
+     *
+     * @param path The file to copy
+     * @param transfer Whether to copy with {@link #transfer(Path, Path)}
+     *                 instead of <code>java.nio.file.Files.copy</code>
+     * @return The temporary copy
+     * @throws IOException If unable to copy the file
+     * @see TempCopyCache
+     */
+    public static Path createTempCopy(Path path, boolean transfer) throws IOException {
         FileNames.Split fileName = FileNames.Split.apply(path);
         Path tmpPath = java.nio.file.Files.createTempFile(fileName.prefix, fileName.suffix);
-        java.nio.file.Files.copy(path, tmpPath, StandardCopyOption.REPLACE_EXISTING);
+        if (transfer)
+            transfer(path, tmpPath);
+        else
+            java.nio.file.Files.copy(path, tmpPath, StandardCopyOption.REPLACE_EXISTING);
         return tmpPath;
     }
+
+    /**
+     * The size in bytes from which {@link #transfer(Path, Path)} attempts a
+     * copy-on-write clone; below it, starting a process costs more than
+     * the copy.
+     */
+    public static final long REFLINK_THRESHOLD = 64L * 1024 * 1024;
+
+    /**
+     * How long to wait for a copy-on-write clone before giving up on it and
+     * copying the content instead.
+     */
+    public static final long REFLINK_TIMEOUT_SECONDS = 30L;
+
+    /**
+     * File stores on which a copy-on-write clone has failed, so it is not
+     * attempted again.
+     */
+    private static final Set<FileStore> NO_REFLINK = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Copies the source file to the target file, replacing the target.
+     *
+     * <p>Large files on Linux are first cloned with <code>cp --reflink</code>,
+     * which shares the data blocks copy-on-write on file systems that support
+     * it, like Btrfs and XFS. A clone that does not finish within
+     * {@link #REFLINK_TIMEOUT_SECONDS} is killed, and the content is copied
+     * once it has exited. Otherwise the content is
+     * copied between file channels with <code>FileChannel.transferTo</code>,
+     * which the platform can implement without copying through user
+     * space.</p>
+     *
+     * @param source The file to copy
+     * @param target The file to copy to
+     * @return The target file
+     * @throws IOException If unable to copy the file
+     */
+    public static Path transfer(Path source, Path target) throws IOException {
+        if (reflink(source, target))
+            return target;
+        try (FileChannel in = FileChannel.open(source, StandardOpenOption.READ);
+             FileChannel out = FileChannel.open(target,
+                 StandardOpenOption.WRITE, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            long size = in.size();
+            long position = 0;
+            while (position < size) {
+                long transferred = in.transferTo(position, size - position, out);
+                if (transferred <= 0)
+                    break; // The source was truncated while copying
+                position += transferred;
+            }
+        }
+        return target;
+    }
+
+    private static boolean reflink(Path source, Path target) throws IOException {
+        if (!System.getProperty("os.name", "").startsWith("Linux"))
+            return false;
+        if (java.nio.file.Files.size(source) < REFLINK_THRESHOLD)
+            return false;
+        Path parent = target.toAbsolutePath().getParent();
+        FileStore store = java.nio.file.Files.getFileStore(null != parent ? parent : target);
+        if (NO_REFLINK.contains(store))
+            return false;
+        Process process = null;
+        try {
+            process = new ProcessBuilder("cp", "--reflink=always",
+                source.toAbsolutePath().toString(), target.toAbsolutePath().toString())
+                .redirectErrorStream(true)
+                .redirectOutput(ProcessBuilder.Redirect.to(new File("/dev/null")))
+                .start();
+            if (process.waitFor(REFLINK_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                if (0 == process.exitValue())
+                    return true;
+            } else {
+                // A hung cp, for example on a stuck network mount, must not
+                // block the copy; fall through and copy the content, but
+                // only once cp has exited and can no longer write the target:
+                if (!process.destroyForcibly().waitFor(REFLINK_TIMEOUT_SECONDS, TimeUnit.SECONDS))
+                    throw new IOException("Unable to stop copying " + source + " to " + target);
+            }
+        } catch (InterruptedException x) {
+            if (null != process)
+                process.destroyForcibly();
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while copying " + source, x);
+        } catch (IOException x) {
+            // No cp on the path; fall through and copy the content
+        }
+        NO_REFLINK.add(store);
+        return false;
+    }
 }
@@ -0,0 +1,294 @@
+/*
+ * Copyright 2017-2020 Brambolt ehf.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.brambolt.nio.file;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Creates temporary copies of files, and reuses a copy instead of copying
+ * again when a file with the same content is copied.
+ *
+ * <p>Content is identified by its size and SHA-256 digest, so files with
+ * different content do not share a copy. The digest is computed over a
+ * memory mapping of the file, and is remembered for as long as the file
+ * keeps its modification time and size, so copying an unchanged file again
+ * does not read it.</p>
+ *
+ * <p>Copies are shared between callers, so they are made read-only and must
+ * not be modified. A caller that needs to modify a copy, or to keep it
+ * beyond the life of the cache, takes it over with {@link #remove(Path)},
+ * which makes it writable again. As a safeguard, a cached copy is only
+ * reused while its own modification time and size are unchanged.</p>
+ *
+ * <p>The cache holds at most a fixed number of copies. The least recently
+ * used copy is evicted and deleted to make room for a new one, so a copy is
+ * only valid until it is evicted. The remembered digests are bounded in the
+ * same way.</p>
+ *
+ * <p>Instances are thread-safe.</p>
+ */
+public class TempCopyCache {
+
+    private static final int DIGEST_WINDOW_SIZE = 64 * 1024 * 1024;
+
+    private static final String DIGEST_ALGORITHM = "SHA-256";
+
+    /**
+     * The default maximum number of copies held by the cache.
+     */
+    public static final int DEFAULT_MAX_COPIES = 64;
+
+    /**
+     * The maximum number of remembered digests, per copy the cache can hold.
+     */
+    private static final int DIGESTS_PER_COPY = 16;
+
+    private static class Digest {
+
+        private final long size;
+
+        private final FileTime lastModifiedTime;
+
+        private final String digest;
+
+        Digest(BasicFileAttributes attributes, String digest) {
+            this.size = attributes.size();
+            this.lastModifiedTime = attributes.lastModifiedTime();
+            this.digest = digest;
+        }
+
+        boolean isCurrent(BasicFileAttributes attributes) {
+            return size == attributes.size() && lastModifiedTime.equals(attributes.lastModifiedTime());
+        }
+    }
+
+    private static class Copy {
+
+        private final Path path;
+
+        private final long size;
+
+        private final FileTime lastModifiedTime;
+
+        Copy(Path path) throws IOException {
+            BasicFileAttributes attributes = java.nio.file.Files.readAttributes(path, BasicFileAttributes.class);
+            this.path = path;
+            this.size = attributes.size();
+            this.lastModifiedTime = attributes.lastModifiedTime();
+        }
+
+        boolean isCurrent() {
+            try {
+                BasicFileAttributes attributes = java.nio.file.Files.readAttributes(path, BasicFileAttributes.class);
+                return size == attributes.size() && lastModifiedTime.equals(attributes.lastModifiedTime());
+            } catch (IOException x) {
+                return false; // Deleted
+            }
+        }
+    }
+
+    private final boolean transfer;
+
+    private final Map<Path, Digest> digests;
+
+    private final Map<String, Copy> copies;
+
+    /**
+     * Copies evicted from the cache and not yet deleted.
+     */
+    private final List<Copy> evicted = new ArrayList<>();
+
+    private final AtomicLong hits = new AtomicLong();
+
+    private final AtomicLong misses = new AtomicLong();
+
+    public TempCopyCache() {
+        this(true);
+    }
+
+    public TempCopyCache(boolean transfer) {
+        this(transfer, DEFAULT_MAX_COPIES);
+    }
+
+    /**
+     * Creates a cache.
+     *
+     * @param transfer Whether to copy with {@link Files#transfer(Path, Path)}
+     *                 instead of <code>java.nio.file.Files.copy</code>
+     * @param maxCopies The maximum number of copies to hold
+     */
+    public TempCopyCache(boolean transfer, int maxCopies) {
+        if (maxCopies < 1)
+            throw new IllegalArgumentException("Invalid maximum number of copies: " + maxCopies);
+        this.transfer = transfer;
+        int maxDigests = maxCopies * DIGESTS_PER_COPY;
+        this.digests = new LinkedHashMap<Path, Digest>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Path, Digest> eldest) {
+                return maxDigests < size();
+            }
+        };
+        this.copies = new LinkedHashMap<String, Copy>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Copy> eldest) {
+                if (size() <= maxCopies)
+                    return false;
+                evicted.add(eldest.getValue());
+                return true;
+            }
+        };
+    }
+
+    /**
+     * Produces a temporary copy of the parameter file, reusing a cached copy
+     * of the same content if there is one.
+     *
+     * @param path The file to copy
+     * @return The temporary copy
+     * @throws IOException If unable to read or copy the file
+     */
+    public Path copy(Path path) throws IOException {
+        Path source = path.toRealPath();
+        BasicFileAttributes attributes = java.nio.file.Files.readAttributes(source, BasicFileAttributes.class);
+        String key = attributes.size() + ":" + digest(source, attributes);
+        Copy copy;
+        synchronized (this) {
+            copy = copies.get(key);
+        }
+        if (null != copy && copy.isCurrent()) {
+            hits.incrementAndGet();
+            return copy.path;
+        }
+        misses.incrementAndGet();
+        Path created = Files.createTempCopy(source, transfer);
+        if (!created.toFile().setReadOnly()) {
+            java.nio.file.Files.deleteIfExists(created);
+            throw new IOException("Unable to make the copy read-only: " + created);
+        }
+        copy = new Copy(created);
+        Copy[] deleted;
+        synchronized (this) {
+            copies.put(key, copy);
+            deleted = evicted.toArray(new Copy[0]);
+            evicted.clear();
+        }
+        for (Copy eviction : deleted)
+            delete(eviction.path);
+        return copy.path;
+    }
+
+    private String digest(Path source, BasicFileAttributes attributes) throws IOException {
+        Digest digest;
+        synchronized (this) {
+            digest = digests.get(source);
+        }
+        if (null != digest && digest.isCurrent(attributes))
+            return digest.digest;
+        MessageDigest md;
+        try {
+            md = MessageDigest.getInstance(DIGEST_ALGORITHM);
+        } catch (NoSuchAlgorithmException x) {
+            throw new IllegalStateException(x); // Every platform has SHA-256
+        }
+        try (FileChannel channel = FileChannel.open(source, StandardOpenOption.READ)) {
+            long size = channel.size();
+            for (long position = 0; position < size; position += DIGEST_WINDOW_SIZE) {
+                MappedByteBuffer window = channel.map(
+                    FileChannel.MapMode.READ_ONLY, position, Math.min(DIGEST_WINDOW_SIZE, size - position));
+                md.update(window);
+            }
+        }
+        digest = new Digest(attributes, toHex(md.digest()));
+        synchronized (this) {
+            digests.put(source, digest);
+        }
+        return digest.digest;
+    }
+
+    private static String toHex(byte[] bytes) {
+        StringBuilder hex = new StringBuilder(2 * bytes.length);
+        for (byte b : bytes)
+            hex.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+        return hex.toString();
+    }
+
+    /**
+     * Removes the parameter copy from the cache, so it is not handed out
+     * again or deleted by the cache, and makes it writable. The caller then
+     * owns the copy, and deletes it when done.
+     *
+     * @param copy A copy produced by this cache
+     * @return True iff the copy was cached
+     */
+    public boolean remove(Path copy) {
+        boolean removed;
+        synchronized (this) {
+            removed = copies.values().removeIf(cached -> cached.path.equals(copy));
+        }
+        if (removed)
+            copy.toFile().setWritable(true, true);
+        return removed;
+    }
+
+    /**
+     * Removes every copy from the cache, and deletes the copies.
+     *
+     * @throws IOException If unable to delete a copy
+     */
+    public void clear() throws IOException {
+        Copy[] cleared;
+        synchronized (this) {
+            evicted.addAll(copies.values());
+            cleared = evicted.toArray(new Copy[0]);
+            evicted.clear();
+            copies.clear();
+            digests.clear();
+        }
+        for (Copy copy : cleared)
+            delete(copy.path);
+    }
+
+    private static void delete(Path copy) throws IOException {
+        copy.toFile().setWritable(true, true); // Read-only files can't be deleted on Windows
+        java.nio.file.Files.deleteIfExists(copy);
+    }
+
+    public synchronized int size() {
+        return copies.size();
+    }
+
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    public long getMissCount() {
+        return misses.get();
+    }
+}
@@ -0,0 +1,341 @@
+/*
+ * Copyright 2017-2020 Brambolt ehf.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.brambolt.nio.file;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A pool of zip file systems shared between concurrent callers.
+ *
+ * <p>Callers lease the file system for a zip file and close the lease when
+ * they are done. One file system is open per canonical zip file path, and it
+ * is shared by all leases on that path. A file system is closed when it has
+ * not been leased for the idle timeout, or when it has been invalidated and
+ * its last lease is closed.</p>
+ *
+ * <p>A pooled file system is invalidated when the zip file's modification
+ * time or size changes, so the next lease opens a fresh file system.</p>
+ *
+ * <p>Zip file systems write changes to the zip file when they are closed.
+ * Changes made through a lease are therefore only persisted once the pooled
+ * file system is closed; use {@link #invalidate(Path)} to have it closed as
+ * soon as the last lease is released.</p>
+ *
+ * <p>Instances are thread-safe.</p>
+ */
+public class ZipFileSystemPool implements Closeable {
+
+    /**
+     * The default idle timeout, in milliseconds.
+     */
+    public static final long DEFAULT_IDLE_TIMEOUT = 60000L;
+
+    /**
+     * A lease on a pooled file system. Closing the lease releases it;
+     * the file system itself is closed by the pool.
+     */
+    public static class Lease implements Closeable {
+
+        private final ZipFileSystemPool pool;
+
+        private final Pooled pooled;
+
+        private boolean released = false;
+
+        private Lease(ZipFileSystemPool pool, Pooled pooled) {
+            this.pool = pool;
+            this.pooled = pooled;
+        }
+
+        public FileSystem getFileSystem() {
+            return pooled.fileSystem;
+        }
+
+        @Override
+        public void close() throws IOException {
+            synchronized (pool) {
+                if (released)
+                    return;
+                released = true;
+            }
+            pool.release(pooled);
+        }
+    }
+
+    private static class Pooled {
+
+        private final Path path;
+
+        private final FileSystem fileSystem;
+
+        private final FileTime lastModifiedTime;
+
+        private final long size;
+
+        private int references = 0;
+
+        private long lastReleased = 0L;
+
+        private boolean invalid = false;
+
+        Pooled(Path path, FileSystem fileSystem, BasicFileAttributes attributes) {
+            this.path = path;
+            this.fileSystem = fileSystem;
+            this.lastModifiedTime = attributes.lastModifiedTime();
+            this.size = attributes.size();
+        }
+
+        boolean isCurrent(BasicFileAttributes attributes) {
+            return lastModifiedTime.equals(attributes.lastModifiedTime()) && size == attributes.size();
+        }
+    }
+
+    private final long idleTimeout;
+
+    private final Map<Path, Pooled> pool = new HashMap<>();
+
+    private ScheduledExecutorService sweeper = null;
+
+    private ScheduledFuture<?> sweep = null;
+
+    public ZipFileSystemPool() {
+        this(DEFAULT_IDLE_TIMEOUT);
+    }
+
+    /**
+     * Creates a pool.
+     *
+     * @param idleTimeout The time in milliseconds after which a file system
+     *                    that is not leased is closed
+     */
+    public ZipFileSystemPool(long idleTimeout) {
+        if (idleTimeout < 1)
+            throw new IllegalArgumentException("Invalid idle timeout: " + idleTimeout);
+        this.idleTimeout = idleTimeout;
+    }
+
+    /**
+     * Leases the file system for the parameter zip file, opening it if it is
+     * not already pooled or the zip file has changed since it was opened.
+     *
+     * <p>The file system is opened without holding the pool lock, so opening
+     * a large zip file does not hold up leases on other paths. If two callers
+     * open the same path at once, the first file system to be pooled is used
+     * and the other is closed.</p>
+     *
+     * @param zipPath The zip file to lease a file system for
+     * @return A lease on the file system, to be closed by the caller
+     * @throws IOException If unable to open the zip file
+     */
+    public Lease lease(Path zipPath) throws IOException {
+        Path path = zipPath.toRealPath();
+        BasicFileAttributes attributes = java.nio.file.Files.readAttributes(path, BasicFileAttributes.class);
+        List<FileSystem> closing = new ArrayList<>();
+        try {
+            synchronized (this) {
+                Lease lease = leasePooled(path, attributes, closing);
+                if (null != lease)
+                    return lease;
+            }
+            // The path-based factory does not register the file system with
+            // the provider, so an invalidated file system can stay open for
+            // its remaining leases:
+            FileSystem opened = FileSystems.newFileSystem(path, (ClassLoader) null);
+            synchronized (this) {
+                Lease lease = leasePooled(path, attributes, closing);
+                if (null != lease) {
+                    closing.add(opened); // Another caller pooled a file system first
+                    return lease;
+                }
+                Pooled pooled = new Pooled(path, opened, attributes);
+                pool.put(path, pooled);
+                scheduleSweep();
+                ++pooled.references;
+                return new Lease(this, pooled);
+            }
+        } finally {
+            close(closing);
+        }
+    }
+
+    /**
+     * Leases the pooled file system for the path, if it is current. Must be
+     * called holding the pool lock.
+     *
+     * @return The lease, or null if there is no current pooled file system
+     */
+    private Lease leasePooled(Path path, BasicFileAttributes attributes, List<FileSystem> closing) {
+        Pooled pooled = pool.get(path);
+        if (null == pooled)
+            return null;
+        if (!pooled.isCurrent(attributes)) {
+            remove(pooled, closing);
+            return null;
+        }
+        ++pooled.references;
+        return new Lease(this, pooled);
+    }
+
+    /**
+     * Invalidates the pooled file system for the parameter zip file, so it is
+     * closed as soon as it is no longer leased, and the next lease opens a
+     * fresh file system.
+     *
+     * @param zipPath The zip file to invalidate
+     * @throws IOException If unable to close the file system
+     */
+    public void invalidate(Path zipPath) throws IOException {
+        Path path = zipPath.toRealPath();
+        List<FileSystem> closing = new ArrayList<>();
+        synchronized (this) {
+            Pooled pooled = pool.get(path);
+            if (null != pooled)
+                remove(pooled, closing);
+        }
+        close(closing);
+    }
+
+    /**
+     * Closes the file systems that have not been leased for the idle timeout.
+     *
+     * @throws IOException If unable to close a file system
+     */
+    public void closeIdle() throws IOException {
+        List<FileSystem> closing = new ArrayList<>();
+        synchronized (this) {
+            long now = System.currentTimeMillis();
+            Iterator<Pooled> iterator = pool.values().iterator();
+            while (iterator.hasNext()) {
+                Pooled pooled = iterator.next();
+                if (0 == pooled.references && idleTimeout <= now - pooled.lastReleased) {
+                    iterator.remove();
+                    closing.add(pooled.fileSystem);
+                }
+            }
+            if (pool.isEmpty())
+                cancelSweep();
+        }
+        close(closing);
+    }
+
+    /**
+     * @return The number of pooled file systems
+     */
+    public synchronized int size() {
+        return pool.size();
+    }
+
+    /**
+     * Invalidates every pooled file system. File systems that are not leased
+     * are closed immediately, and the rest when their last lease is closed.
+     *
+     * @throws IOException If unable to close a file system
+     */
+    @Override
+    public void close() throws IOException {
+        List<FileSystem> closing = new ArrayList<>();
+        synchronized (this) {
+            for (Pooled pooled : new ArrayList<>(pool.values()))
+                remove(pooled, closing);
+            cancelSweep();
+            if (null != sweeper) {
+                sweeper.shutdown();
+                sweeper = null;
+            }
+        }
+        close(closing);
+    }
+
+    private void release(Pooled pooled) throws IOException {
+        boolean closing;
+        synchronized (this) {
+            --pooled.references;
+            pooled.lastReleased = System.currentTimeMillis();
+            closing = pooled.invalid && 0 == pooled.references;
+        }
+        if (closing)
+            pooled.fileSystem.close();
+    }
+
+    /**
+     * Removes the parameter file system from the pool, closing it if it is
+     * not leased. Must be called holding the pool lock.
+     */
+    private void remove(Pooled pooled, List<FileSystem> closing) {
+        pooled.invalid = true;
+        if (pool.get(pooled.path) == pooled)
+            pool.remove(pooled.path);
+        if (0 == pooled.references)
+            closing.add(pooled.fileSystem);
+    }
+
+    private static void close(List<FileSystem> fileSystems) throws IOException {
+        IOException failure = null;
+        for (FileSystem fs : fileSystems) {
+            try {
+                fs.close();
+            } catch (IOException x) {
+                if (null == failure)
+                    failure = x;
+                else
+                    failure.addSuppressed(x);
+            }
+        }
+        if (null != failure)
+            throw failure;
+    }
+
+    private void scheduleSweep() {
+        if (null != sweep)
+            return;
+        if (null == sweeper)
+            sweeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "zip-file-system-pool");
+                thread.setDaemon(true);
+                return thread;
+            });
+        sweep = sweeper.scheduleWithFixedDelay(() -> {
+            try {
+                closeIdle();
+            } catch (IOException ignored) {
+                // The file system is out of the pool; nothing more to do
+            }
+        }, idleTimeout, idleTimeout, TimeUnit.MILLISECONDS);
+    }
+
+    private void cancelSweep() {
+        if (null != sweep) {
+            sweep.cancel(false);
+            sweep = null;
+        }
+    }
+}
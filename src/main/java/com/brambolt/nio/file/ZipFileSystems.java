@@ -34,6 +34,36 @@ import java.util.Map;
  */
 public class ZipFileSystems {
 
+  private static final ZipFileSystemPool pool = new ZipFileSystemPool();
+
+  /**
+   * The shared pool of zip file systems used by the lease methods.
+   * @return The shared pool
+   */
+  public static ZipFileSystemPool getPool() {
+    return pool;
+  }
+
+  /**
+   * Leases a shared, pooled zip file system for a zip file.
+   *
+   * <p>Unlike <code>unzip</code>, this does not close file systems other
+   * callers are using, and does not parse the central directory again while
+   * the pooled file system is open.</p>
+   *
+   * @param zipFile The zip file to lease a file system for
+   * @return A lease on the file system, to be closed by the caller
+   * @throws IOException If unable to open the parameter zip file
+   * @see ZipFileSystemPool
+   */
+  public static ZipFileSystemPool.Lease lease(File zipFile) throws IOException {
+    return lease(zipFile.toPath());
+  }
+
+  public static ZipFileSystemPool.Lease lease(Path zipPath) throws IOException {
+    return pool.lease(zipPath);
+  }
+
   /**
    * Unzips a zip file and returns a zip file system object.
    * @param zipFile The zip file to open
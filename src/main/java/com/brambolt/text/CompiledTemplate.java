@@ -0,0 +1,185 @@
+package com.brambolt.text;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * A template that has been parsed once and can be instantiated repeatedly.
+ *
+ * <p>Compiling a template records the offsets of every delimiter occurrence,
+ * and the candidate variable names between consecutive delimiters. Rendering
+ * then resolves the bindings in a single pass over the delimiter offsets, and
+ * writes the result into a string builder sized to the exact output length.</p>
+ *
+ * <p>Instances are immutable and can be shared between threads.</p>
+ *
+ * @see Templates#compile(String, String)
+ */
+public class CompiledTemplate {
+
+    private final String template;
+
+    private final String delimiter;
+
+    /**
+     * The offsets of the delimiter occurrences in the template, in order.
+     */
+    private final int[] offsets;
+
+    /**
+     * The candidate variable names; the name at index <code>i</code> is the
+     * text between the delimiters at offsets <code>i</code> and <code>i + 1</code>.
+     */
+    private final String[] names;
+
+    CompiledTemplate(String template, String delimiter) {
+        if (null == template)
+            throw new IllegalArgumentException("No template");
+        if (null == delimiter || delimiter.isEmpty())
+            throw new IllegalArgumentException("No template delimiter");
+        this.template = template;
+        this.delimiter = delimiter;
+        this.offsets = findDelimiters(template, delimiter);
+        this.names = findNames(template, delimiter, offsets);
+    }
+
+    private static int[] findDelimiters(String template, String delimiter) {
+        int[] found = new int[8];
+        int count = 0;
+        int offset = template.indexOf(delimiter);
+        while (-1 < offset) {
+            if (count == found.length)
+                found = Arrays.copyOf(found, count << 1);
+            found[count++] = offset;
+            offset = template.indexOf(delimiter, offset + delimiter.length());
+        }
+        return Arrays.copyOf(found, count);
+    }
+
+    private static String[] findNames(String template, String delimiter, int[] offsets) {
+        int count = Math.max(0, offsets.length - 1);
+        String[] names = new String[count];
+        for (int i = 0; i < count; ++i)
+            names[i] = template.substring(offsets[i] + delimiter.length(), offsets[i + 1]);
+        return names;
+    }
+
+    /**
+     * @return The template source this instance was compiled from
+     */
+    public String getTemplate() {
+        return template;
+    }
+
+    /**
+     * @return The delimiter identifying the template variables
+     */
+    public String getDelimiter() {
+        return delimiter;
+    }
+
+    /**
+     * Instantiates the template with the parameter bindings.
+     *
+     * <p>Bound values are inserted as-is and are not scanned again for
+     * template variables. Variables without a binding are left in place.</p>
+     *
+     * @param bindings The bindings to instantiate the template with
+     * @return The content produced by instantiating the template with the bindings
+     * @throws IllegalStateException If a binding has a null value
+     */
+    public String render(Map<?, ?> bindings) {
+        if (null == bindings || bindings.isEmpty())
+            return template;
+        return renderValues(Templates.strings(bindings), new StringBuilder(0)).toString();
+    }
+
+    /**
+     * Instantiates the template with bindings that have already been
+     * converted to strings, appending the result to the parameter builder.
+     *
+     * @param values The string values to bind, keyed by variable name
+     * @param sb The builder to append to; its capacity is grown to fit
+     * @return The parameter builder
+     */
+    StringBuilder renderValues(Map<String, String> values, StringBuilder sb) {
+        String[] resolved = resolve(values);
+        sb.ensureCapacity(sb.length() + length(resolved));
+        int position = 0;
+        for (int i = 0; i < resolved.length; ++i) {
+            if (null == resolved[i])
+                continue;
+            sb.append(template, position, offsets[i]).append(resolved[i]);
+            position = offsets[i + 1] + delimiter.length();
+        }
+        return sb.append(template, position, template.length());
+    }
+
+    /**
+     * Instantiates the template with the parameter bindings, and appends the
+     * result to the parameter output.
+     *
+     * @param bindings The bindings to instantiate the template with
+     * @param out The output to append the instantiated template to
+     * @throws IOException If unable to append to the output
+     * @throws IllegalStateException If a binding has a null value
+     * @see #render(Map)
+     */
+    public void render(Map<?, ?> bindings, Appendable out) throws IOException {
+        if (null == bindings || bindings.isEmpty())
+            out.append(template);
+        else
+            renderValues(Templates.strings(bindings), out);
+    }
+
+    void renderValues(Map<String, String> values, Appendable out) throws IOException {
+        String[] resolved = resolve(values);
+        int position = 0;
+        for (int i = 0; i < resolved.length; ++i) {
+            if (null == resolved[i])
+                continue;
+            append(out, position, offsets[i]);
+            out.append(resolved[i]);
+            position = offsets[i + 1] + delimiter.length();
+        }
+        append(out, position, template.length());
+    }
+
+    private void append(Appendable out, int start, int end) throws IOException {
+        if (out instanceof Writer)
+            ((Writer) out).write(template, start, end - start);
+        else
+            out.append(template, start, end);
+    }
+
+    /**
+     * Resolves the variables bound by the parameter values.
+     *
+     * @param values The string values to bind, keyed by variable name
+     * @return The bound value for each delimiter that opens a bound variable,
+     *         and null for every other delimiter
+     */
+    private String[] resolve(Map<String, String> values) {
+        String[] resolved = new String[offsets.length];
+        int i = 0;
+        while (i < names.length) {
+            String value = values.get(names[i]);
+            if (null != value) {
+                resolved[i] = value;
+                i += 2; // The closing delimiter can't open another variable
+            } else
+                ++i; // The closing delimiter may open the next variable
+        }
+        return resolved;
+    }
+
+    private int length(String[] resolved) {
+        int length = template.length();
+        for (int i = 0; i < resolved.length; ++i)
+            if (null != resolved[i])
+                length += resolved[i].length() - (offsets[i + 1] + delimiter.length() - offsets[i]);
+        return length;
+    }
+}
@@ -0,0 +1,174 @@
+package com.brambolt.text;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.CharBuffer;
+import java.util.Map;
+
+/**
+ * Instantiates a template as it is read, without holding the template or
+ * the result in memory.
+ *
+ * <p>The delimiter is matched incrementally (Knuth-Morris-Pratt), so template
+ * variables and delimiters may span read buffer boundaries. The text of a
+ * candidate variable is held only until it is longer than the longest bound
+ * name, which keeps the memory use fixed regardless of the content size.</p>
+ *
+ * <p>The semantics are those of {@link CompiledTemplate#render(Map)}.</p>
+ */
+final class StreamingRenderer {
+
+    static final int BUFFER_SIZE = 8192;
+
+    private final Map<String, String> values;
+
+    private final String delimiter;
+
+    private final char[] delim;
+
+    /**
+     * The Knuth-Morris-Pratt failure function for the delimiter.
+     */
+    private final int[] failure;
+
+    private final int maxNameLength;
+
+    private final Appendable out;
+
+    /**
+     * The text of the candidate variable, if one is open.
+     */
+    private final StringBuilder name = new StringBuilder();
+
+    private boolean inName = false;
+
+    /**
+     * The number of delimiter characters matched so far and held back.
+     */
+    private int matched = 0;
+
+    StreamingRenderer(Map<String, String> values, String delimiter, Appendable out) {
+        this(values, maxLength(values), delimiter, out);
+    }
+
+    StreamingRenderer(Map<String, String> values, int maxNameLength, String delimiter, Appendable out) {
+        if (null == delimiter || delimiter.isEmpty())
+            throw new IllegalArgumentException("No template delimiter");
+        this.values = values;
+        this.delimiter = delimiter;
+        this.delim = delimiter.toCharArray();
+        this.failure = failure(delim);
+        this.maxNameLength = maxNameLength;
+        this.out = out;
+    }
+
+    private static int[] failure(char[] pattern) {
+        int[] failure = new int[pattern.length];
+        int k = 0;
+        for (int i = 1; i < pattern.length; ++i) {
+            while (0 < k && pattern[i] != pattern[k])
+                k = failure[k - 1];
+            if (pattern[i] == pattern[k])
+                ++k;
+            failure[i] = k;
+        }
+        return failure;
+    }
+
+    static int maxLength(Map<String, String> values) {
+        int length = 0;
+        for (String key : values.keySet())
+            length = Math.max(length, key.length());
+        return length;
+    }
+
+    void render(Reader reader) throws IOException {
+        char[] buffer = new char[BUFFER_SIZE];
+        int count;
+        while (-1 != (count = reader.read(buffer)))
+            render(buffer, count);
+        finish();
+    }
+
+    private void render(char[] buffer, int count) throws IOException {
+        int i = 0;
+        while (i < count) {
+            if (!inName && 0 == matched) {
+                // Copy literal text up to the next possible delimiter in bulk:
+                int start = i;
+                while (i < count && buffer[i] != delim[0])
+                    ++i;
+                append(buffer, start, i);
+                if (i == count)
+                    return;
+            }
+            accept(buffer[i++]);
+        }
+    }
+
+    private void accept(char c) throws IOException {
+        int k = matched;
+        while (0 < k && c != delim[k])
+            k = failure[k - 1];
+        if (c == delim[k])
+            ++k;
+        // Release the held characters that can no longer start the delimiter:
+        int released = matched + 1 - k;
+        for (int j = 0; j < released; ++j)
+            emit(j < matched ? delim[j] : c);
+        matched = k;
+        if (matched == delim.length) {
+            matched = 0;
+            onDelimiter();
+        }
+    }
+
+    private void emit(char c) throws IOException {
+        if (!inName) {
+            out.append(c);
+            return;
+        }
+        name.append(c);
+        if (maxNameLength < name.length()) {
+            // No binding can match; the opening delimiter was just text:
+            out.append(delimiter).append(name);
+            name.setLength(0);
+            inName = false;
+        }
+    }
+
+    private void onDelimiter() throws IOException {
+        if (!inName) {
+            inName = true;
+            return;
+        }
+        String value = values.get(name.toString());
+        if (null != value) {
+            out.append(value);
+            inName = false;
+        } else
+            // The closing delimiter may open the next variable:
+            out.append(delimiter).append(name);
+        name.setLength(0);
+    }
+
+    private void finish() throws IOException {
+        if (inName)
+            out.append(delimiter).append(name);
+        inName = false;
+        name.setLength(0);
+        for (int j = 0; j < matched; ++j)
+            out.append(delim[j]);
+        matched = 0;
+    }
+
+    private void append(char[] buffer, int start, int end) throws IOException {
+        if (start == end)
+            return;
+        if (out instanceof Writer)
+            ((Writer) out).write(buffer, start, end - start);
+        else
+            out.append(CharBuffer.wrap(buffer, start, end - start));
+    }
+}
@@ -0,0 +1,112 @@
+package com.brambolt.text;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Bindings that have been converted to strings once, for instantiating many
+ * templates with the same bindings.
+ *
+ * <p>Templates are instantiated in a single pass: the delimiters are found
+ * and the text between them is looked up in the bindings, so the cost does
+ * not grow with the number of bindings. What does grow with it is the
+ * conversion of the binding map to strings. With thousands of bindings, for
+ * example localized strings, preparing the bindings once keeps that cost
+ * out of every instantiation.</p>
+ *
+ * <p>The semantics are those of {@link Templates#bind(String, Map, String)}.
+ * Instances are immutable and can be shared between threads.</p>
+ *
+ * @see Templates#prepare(Map)
+ */
+public class TemplateBindings {
+
+    public static final TemplateBindings EMPTY = new TemplateBindings(Collections.emptyMap());
+
+    private final Map<String, String> values;
+
+    private final int maximumKeyLength;
+
+    TemplateBindings(Map<String, String> values) {
+        this.values = Collections.unmodifiableMap(values);
+        this.maximumKeyLength = StreamingRenderer.maxLength(values);
+    }
+
+    /**
+     * Instantiates the parameter template using the default delimiter.
+     *
+     * @param template The template to instantiate
+     * @return The instantiated template
+     * @see #bind(String, String)
+     */
+    public String bind(String template) {
+        return bind(template, Templates.DEFAULT_DELIMITER);
+    }
+
+    /**
+     * Instantiates the parameter template.
+     *
+     * @param template The string content with template variables
+     * @param delimiter The delimiter identifying the template variables
+     * @return The content produced by instantiating the template with the bindings
+     */
+    public String bind(String template, String delimiter) {
+        if (null == template)
+            return null;
+        if (values.isEmpty())
+            return template;
+        return render(Templates.compile(template, delimiter));
+    }
+
+    /**
+     * Instantiates the parameter compiled template.
+     *
+     * @param template The template to instantiate
+     * @return The content produced by instantiating the template with the bindings
+     */
+    public String render(CompiledTemplate template) {
+        return template.renderValues(values, new StringBuilder(0)).toString();
+    }
+
+    /**
+     * Instantiates the parameter compiled template, and appends the result
+     * to the parameter output.
+     *
+     * @param template The template to instantiate
+     * @param out The output to append the instantiated template to
+     * @throws IOException If unable to append to the output
+     */
+    public void render(CompiledTemplate template, Appendable out) throws IOException {
+        template.renderValues(values, out);
+    }
+
+    /**
+     * Instantiates the template read from the parameter reader as it is
+     * read, and appends the result to the parameter output.
+     *
+     * @param reader The reader to read the template from
+     * @param delimiter The delimiter identifying the template variables
+     * @param out The output to append the instantiated template to
+     * @throws IOException If unable to read the template or append the output
+     * @see Templates#render(Reader, Map, String, Appendable)
+     */
+    public void render(Reader reader, String delimiter, Appendable out) throws IOException {
+        if (values.isEmpty())
+            Templates.copy(reader, out);
+        else
+            new StreamingRenderer(values, maximumKeyLength, delimiter, out).render(reader);
+    }
+
+    /**
+     * @return The bound values, keyed by variable name
+     */
+    public Map<String, String> asMap() {
+        return values;
+    }
+
+    public int size() {
+        return values.size();
+    }
+}
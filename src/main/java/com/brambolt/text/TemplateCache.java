@@ -0,0 +1,245 @@
+package com.brambolt.text;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.ref.WeakReference;
+import java.nio.charset.Charset;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A bounded, least-recently-used cache of compiled class path templates.
+ *
+ * <p>Templates are keyed by class loader, resource path, charset and
+ * delimiter. The class loader is only weakly referenced, so caching a
+ * template does not keep its class loader alive.</p>
+ *
+ * <p>Resources larger than the maximum resource size are not compiled; the
+ * caller is expected to stream them instead. Resources that are missing or
+ * too large are recorded as such, so later lookups for them are answered
+ * from the cache until it is cleared or they are evicted.</p>
+ *
+ * <p>Resources are opened with a {@link ResourceOpener}, so the cache can
+ * read through other resource caches. By default they are opened with the
+ * class loader.</p>
+ *
+ * <p>Instances are thread-safe. Resources are read and compiled outside the
+ * cache lock, so two threads missing on the same key at the same time may
+ * both load it.</p>
+ */
+public class TemplateCache {
+
+    /**
+     * The default maximum number of cached templates.
+     */
+    public static final int DEFAULT_MAXIMUM_SIZE = 256;
+
+    /**
+     * The default maximum size in bytes of a cached template resource.
+     */
+    public static final long DEFAULT_MAXIMUM_RESOURCE_SIZE = 1024 * 1024;
+
+    /**
+     * Opens template resources for the cache.
+     */
+    @FunctionalInterface
+    public interface ResourceOpener {
+
+        /**
+         * @param loader The class loader to read the resource with
+         * @param path The resource path
+         * @return The resource stream, or null if the resource does not exist
+         * @throws IOException If unable to open the resource
+         */
+        InputStream open(ClassLoader loader, String path) throws IOException;
+    }
+
+    /**
+     * Recorded for resources that are missing or too large to cache.
+     */
+    private static final CompiledTemplate NOT_CACHED = Templates.compile("", Templates.DEFAULT_DELIMITER);
+
+    private static final class Key {
+
+        private final WeakReference<ClassLoader> loader;
+
+        private final int loaderHash;
+
+        private final String path;
+
+        private final Charset charset;
+
+        private final String delimiter;
+
+        private final int hash;
+
+        Key(ClassLoader loader, String path, Charset charset, String delimiter) {
+            this.loader = new WeakReference<>(loader);
+            this.loaderHash = System.identityHashCode(loader);
+            this.path = path;
+            this.charset = charset;
+            this.delimiter = delimiter;
+            this.hash = 31 * (31 * (31 * loaderHash + path.hashCode()) + charset.hashCode()) + delimiter.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o)
+                return true;
+            if (!(o instanceof Key))
+                return false;
+            Key other = (Key) o;
+            ClassLoader cl = loader.get();
+            return hash == other.hash
+                && null != cl && cl == other.loader.get()
+                && path.equals(other.path)
+                && charset.equals(other.charset)
+                && delimiter.equals(other.delimiter);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    private final int maximumSize;
+
+    private final long maximumResourceSize;
+
+    private final ResourceOpener opener;
+
+    private final LinkedHashMap<Key, CompiledTemplate> templates;
+
+    private long hits = 0L;
+
+    private long misses = 0L;
+
+    private long evictions = 0L;
+
+    public TemplateCache() {
+        this(DEFAULT_MAXIMUM_SIZE);
+    }
+
+    public TemplateCache(int maximumSize) {
+        this(maximumSize, DEFAULT_MAXIMUM_RESOURCE_SIZE);
+    }
+
+    public TemplateCache(int maximumSize, long maximumResourceSize) {
+        this(maximumSize, maximumResourceSize, ClassLoader::getResourceAsStream);
+    }
+
+    /**
+     * Creates a template cache.
+     *
+     * @param maximumSize The maximum number of templates to hold
+     * @param maximumResourceSize The maximum size in bytes of a template
+     *                            resource to cache
+     * @param opener Opens the template resources
+     */
+    public TemplateCache(int maximumSize, long maximumResourceSize, ResourceOpener opener) {
+        if (maximumSize < 1)
+            throw new IllegalArgumentException("Invalid maximum size: " + maximumSize);
+        this.maximumSize = maximumSize;
+        this.maximumResourceSize = maximumResourceSize;
+        this.opener = opener;
+        this.templates = new LinkedHashMap<Key, CompiledTemplate>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, CompiledTemplate> eldest) {
+                if (size() <= TemplateCache.this.maximumSize)
+                    return false;
+                ++evictions;
+                return true;
+            }
+        };
+    }
+
+    /**
+     * Retrieves the compiled template for the parameter resource, reading and
+     * compiling the resource if it is not already cached.
+     *
+     * @param loader The class loader to read the resource with
+     * @param path The resource path
+     * @param charset The charset to read the resource with
+     * @param delimiter The delimiter identifying the template variables
+     * @return The compiled template, or null if the resource does not exist
+     *         or is too large to cache
+     * @throws IOException If unable to read the resource
+     */
+    public CompiledTemplate get(ClassLoader loader, String path, Charset charset, String delimiter) throws IOException {
+        Key key = new Key(loader, path, charset, delimiter);
+        synchronized (this) {
+            CompiledTemplate cached = templates.get(key);
+            if (null != cached) {
+                ++hits;
+                return NOT_CACHED != cached ? cached : null;
+            }
+            ++misses;
+        }
+        CompiledTemplate loaded = load(loader, path, charset, delimiter);
+        synchronized (this) {
+            templates.put(key, null != loaded ? loaded : NOT_CACHED);
+        }
+        return loaded;
+    }
+
+    private CompiledTemplate load(ClassLoader loader, String path, Charset charset, String delimiter) throws IOException {
+        try (InputStream is = opener.open(loader, path)) {
+            if (null == is)
+                return null;
+            byte[] bytes = read(is);
+            return null != bytes ? Templates.compile(new String(bytes, charset), delimiter) : null;
+        }
+    }
+
+    /**
+     * Reads the resource, unless it is larger than the maximum resource size;
+     * the size is not known up front for every source, so at most one byte
+     * more than the maximum is read.
+     *
+     * @return The resource content, or null if the resource is too large
+     */
+    private byte[] read(InputStream is) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        long remaining = maximumResourceSize < Long.MAX_VALUE ? maximumResourceSize + 1 : Long.MAX_VALUE;
+        int count;
+        while (0 < remaining && -1 != (count = is.read(buffer, 0, (int) Math.min(buffer.length, remaining)))) {
+            bytes.write(buffer, 0, count);
+            remaining -= count;
+        }
+        return 0 < remaining ? bytes.toByteArray() : null;
+    }
+
+    /**
+     * Removes all cached templates. The counters are not reset.
+     */
+    public synchronized void clear() {
+        templates.clear();
+    }
+
+    /**
+     * @return The number of cached entries, including the resources
+     *         recorded as missing or too large
+     */
+    public synchronized int size() {
+        return templates.size();
+    }
+
+    public int getMaximumSize() {
+        return maximumSize;
+    }
+
+    public synchronized long getHitCount() {
+        return hits;
+    }
+
+    public synchronized long getMissCount() {
+        return misses;
+    }
+
+    public synchronized long getEvictionCount() {
+        return evictions;
+    }
+}
@@ -1,7 +1,11 @@
 package com.brambolt.text;
 
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.CharBuffer;
+import java.util.HashMap;
 import java.util.Map;
-import java.util.regex.Matcher;
 
 /**
  * Simple templating alternative that can be used when an engine like
@@ -53,16 +57,133 @@ public class Templates {
             return null;
         if (null == bindings || bindings.isEmpty())
             return template;
-        String bound = template;
+        return compile(template, delimiter).render(bindings);
+    }
+
+    /**
+     * Compiles the parameter template using the default delimiter.
+     *
+     * @param template The template to compile
+     * @return The compiled template
+     * @see #compile(String, String)
+     */
+    public static CompiledTemplate compile(String template) {
+        return compile(template, DEFAULT_DELIMITER);
+    }
+
+    /**
+     * Parses the template variables in the parameter template once, so the
+     * template can be instantiated repeatedly without parsing it again.
+     *
+     * <p>Use this instead of {@link #bind(String, Map, String)} when the same
+     * template is instantiated many times.</p>
+     *
+     * @param template The string content with template variables
+     * @param delimiter The delimiter identifying the template variables
+     * @return The compiled template
+     * @throws IllegalArgumentException If the template is null or the delimiter is empty
+     */
+    public static CompiledTemplate compile(String template, String delimiter) {
+        return new CompiledTemplate(template, delimiter);
+    }
+
+    /**
+     * Instantiates the template read from the parameter reader with the
+     * parameter bindings using the default delimiter, and appends the result
+     * to the parameter output.
+     *
+     * @param reader The reader to read the template from
+     * @param bindings The bindings to instantiate the template with
+     * @param out The output to append the instantiated template to
+     * @throws IOException If unable to read the template or append the output
+     * @see #render(Reader, Map, String, Appendable)
+     */
+    public static void render(Reader reader, Map<?, ?> bindings, Appendable out) throws IOException {
+        render(reader, bindings, DEFAULT_DELIMITER, out);
+    }
+
+    /**
+     * Instantiates the template read from the parameter reader with the
+     * parameter bindings, and appends the result to the parameter output.
+     *
+     * <p>The template is processed as it is read, so neither the template
+     * nor the result are held in memory. Template variables may span read
+     * buffer boundaries. The semantics are those of
+     * {@link CompiledTemplate#render(Map)}.</p>
+     *
+     * <p>The caller opens and closes the reader and the output.</p>
+     *
+     * @param reader The reader to read the template from
+     * @param bindings The bindings to instantiate the template with
+     * @param delimiter The delimiter identifying the template variables
+     * @param out The output to append the instantiated template to
+     * @throws IOException If unable to read the template or append the output
+     * @throws IllegalStateException If a binding has a null value
+     */
+    public static void render(Reader reader, Map<?, ?> bindings, String delimiter, Appendable out) throws IOException {
+        if (null == bindings || bindings.isEmpty())
+            copy(reader, out);
+        else
+            new StreamingRenderer(strings(bindings), delimiter, out).render(reader);
+    }
+
+    static void copy(Reader reader, Appendable out) throws IOException {
+        char[] buffer = new char[StreamingRenderer.BUFFER_SIZE];
+        int count;
+        while (-1 != (count = reader.read(buffer))) {
+            if (out instanceof Writer)
+                ((Writer) out).write(buffer, 0, count);
+            else
+                out.append(CharBuffer.wrap(buffer, 0, count));
+        }
+    }
+
+    /**
+     * Converts the parameter bindings to strings once, for instantiating
+     * many templates with the same bindings.
+     *
+     * @param bindings The bindings to prepare
+     * @return The prepared bindings
+     * @throws IllegalStateException If a binding has a null value
+     * @see TemplateBindings
+     */
+    public static TemplateBindings prepare(Map<?, ?> bindings) {
+        if (null == bindings || bindings.isEmpty())
+            return TemplateBindings.EMPTY;
+        return new TemplateBindings(toStrings(bindings));
+    }
+
+    /**
+     * Produces the string keys and values of the parameter bindings for a
+     * single instantiation. Bindings that already have string keys and
+     * values are used as they are, instead of being copied.
+     *
+     * @throws IllegalStateException If a binding has a null value
+     */
+    @SuppressWarnings("unchecked")
+    static Map<String, String> strings(Map<?, ?> bindings) {
+        for (Map.Entry<?, ?> binding : bindings.entrySet())
+            if (!(binding.getKey() instanceof String) || !(binding.getValue() instanceof String))
+                return toStrings(bindings);
+        return (Map<String, String>) bindings;
+    }
+
+    /**
+     * Converts the parameter bindings to string keys and values.
+     *
+     * @param bindings The bindings to convert
+     * @return A map holding the string representations of the bindings
+     * @throws IllegalStateException If a binding has a null value
+     */
+    public static Map<String, String> toStrings(Map<?, ?> bindings) {
+        Map<String, String> strings = new HashMap<>(bindings.size() * 4 / 3 + 1);
         for (Map.Entry<?, ?> binding : bindings.entrySet()) {
             String key = binding.getKey().toString();
-            String pattern = delimiter + key + delimiter;
             Object value = binding.getValue();
             if (null == value)
                 throw new IllegalStateException("No value binding for key: " + key);
-            String replacement = Matcher.quoteReplacement(binding.getValue().toString());
-            bound = bound.replaceAll(pattern, replacement);
+            strings.put(key, value.toString());
         }
-        return bound;
+        return strings;
     }
 }
@@ -0,0 +1,208 @@
+package com.brambolt.util;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.GatheringByteChannel;
+import java.nio.channels.IllegalBlockingModeException;
+import java.nio.channels.SelectableChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * An output stream that collects the written bytes in a list of fixed-size
+ * chunks instead of one growing array.
+ *
+ * <p>Unlike a <code>ByteArrayOutputStream</code>, the content is never
+ * copied to grow the buffer, so the size does not have to be guessed up
+ * front. The content can be copied once, into an array or buffer of the
+ * exact size, or written to a channel straight from the chunks with a
+ * gathering write, without any copy.</p>
+ *
+ * <p>The chunks are pooled. Call {@link #release()} when the content is no
+ * longer needed, to return them to the pool; a stream that is not released
+ * is simply left to the garbage collector. The stream is not thread-safe.</p>
+ */
+public class ChunkedOutputStream extends OutputStream {
+
+    /**
+     * The size of each chunk.
+     */
+    public static final int CHUNK_SIZE = 64 * 1024;
+
+    /**
+     * The maximum number of chunks kept in the pool; more chunks than this
+     * are left to the garbage collector when released.
+     */
+    private static final int MAX_POOLED = 64;
+
+    private static final BlockingQueue<byte[]> pool = new ArrayBlockingQueue<>(MAX_POOLED);
+
+    private static byte[] acquire() {
+        byte[] chunk = pool.poll();
+        return null != chunk ? chunk : new byte[CHUNK_SIZE];
+    }
+
+    private final List<byte[]> chunks = new ArrayList<>();
+
+    /**
+     * The current chunk, which is the last chunk in the list.
+     */
+    private byte[] chunk = null;
+
+    /**
+     * The number of bytes in the current chunk.
+     */
+    private int count = CHUNK_SIZE;
+
+    private long size = 0L;
+
+    @Override
+    public void write(int b) {
+        if (CHUNK_SIZE == count)
+            next();
+        chunk[count++] = (byte) b;
+        ++size;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) {
+        if (off < 0 || len < 0 || b.length - len < off)
+            throw new IndexOutOfBoundsException();
+        size += len;
+        while (0 < len) {
+            if (CHUNK_SIZE == count)
+                next();
+            int n = Math.min(CHUNK_SIZE - count, len);
+            System.arraycopy(b, off, chunk, count, n);
+            count += n;
+            off += n;
+            len -= n;
+        }
+    }
+
+    private void next() {
+        chunk = acquire();
+        chunks.add(chunk);
+        count = 0;
+    }
+
+    /**
+     * @return The number of bytes written
+     */
+    public long size() {
+        return size;
+    }
+
+    /**
+     * Copies the content to an array of the exact size.
+     *
+     * @return The content
+     * @throws OutOfMemoryError If the content is too large for an array
+     */
+    public byte[] toByteArray() {
+        if (Integer.MAX_VALUE - 8 < size)
+            throw new OutOfMemoryError("Too large for an array: " + size);
+        byte[] bytes = new byte[(int) size];
+        int position = 0;
+        for (int i = 0; i < chunks.size(); ++i) {
+            int length = length(i);
+            System.arraycopy(chunks.get(i), 0, bytes, position, length);
+            position += length;
+        }
+        return bytes;
+    }
+
+    /**
+     * Copies the content to a buffer of the exact size.
+     *
+     * @param direct Whether to allocate a direct buffer
+     * @return The content, in a buffer ready to be read
+     * @throws OutOfMemoryError If the content is too large for a buffer
+     */
+    public ByteBuffer toByteBuffer(boolean direct) {
+        if (!direct)
+            return ByteBuffer.wrap(toByteArray());
+        if (Integer.MAX_VALUE < size)
+            throw new OutOfMemoryError("Too large for a buffer: " + size);
+        ByteBuffer buffer = ByteBuffer.allocateDirect((int) size);
+        for (int i = 0; i < chunks.size(); ++i)
+            buffer.put(chunks.get(i), 0, length(i));
+        buffer.flip();
+        return buffer;
+    }
+
+    /**
+     * Produces buffers that share the chunks, without copying the content.
+     * The buffers are only valid until the stream is released.
+     *
+     * @return A buffer for each chunk, ready to be read
+     */
+    public ByteBuffer[] toByteBuffers() {
+        ByteBuffer[] buffers = new ByteBuffer[chunks.size()];
+        for (int i = 0; i < buffers.length; ++i)
+            buffers[i] = ByteBuffer.wrap(chunks.get(i), 0, length(i));
+        return buffers;
+    }
+
+    private int length(int i) {
+        return i < chunks.size() - 1 ? CHUNK_SIZE : count;
+    }
+
+    /**
+     * Writes the content to the parameter channel, with gathering writes
+     * straight from the chunks.
+     *
+     * <p>The channel must be in blocking mode. A non-blocking channel may
+     * write nothing when its buffer is full, and this method does not wait
+     * for it to become writable.</p>
+     *
+     * @param channel The blocking channel to write to
+     * @return The number of bytes written
+     * @throws IllegalBlockingModeException If the channel is in non-blocking mode
+     * @throws IOException If unable to write to the channel, or if the
+     *                     channel accepts no bytes
+     */
+    public long writeTo(GatheringByteChannel channel) throws IOException {
+        if (channel instanceof SelectableChannel && !((SelectableChannel) channel).isBlocking())
+            throw new IllegalBlockingModeException();
+        ByteBuffer[] buffers = toByteBuffers();
+        long written = 0L;
+        int first = 0;
+        while (written < size) {
+            long n = channel.write(buffers, first, buffers.length - first);
+            if (n <= 0) // Instead of spinning on a channel that makes no progress
+                throw new IOException("Channel accepted no bytes after " + written + " of " + size);
+            written += n;
+            while (first < buffers.length && !buffers[first].hasRemaining())
+                ++first;
+        }
+        return written;
+    }
+
+    /**
+     * Writes the content to the parameter stream, chunk by chunk.
+     *
+     * @param os The stream to write to
+     * @throws IOException If unable to write to the stream
+     */
+    public void writeTo(OutputStream os) throws IOException {
+        for (int i = 0; i < chunks.size(); ++i)
+            os.write(chunks.get(i), 0, length(i));
+    }
+
+    /**
+     * Discards the content and returns the chunks to the pool. The stream
+     * can be written to again afterwards.
+     */
+    public void release() {
+        for (byte[] released : chunks)
+            pool.offer(released);
+        chunks.clear();
+        chunk = null;
+        count = CHUNK_SIZE;
+        size = 0L;
+    }
+}
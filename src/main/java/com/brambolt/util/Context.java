@@ -2,8 +2,26 @@ package com.brambolt.util;
 
 import org.slf4j.Logger;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
 import java.util.Vector;
-
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Collects diagnostic entries, possibly from many threads.
+ *
+ * <p>Entries are appended without locking. By default every entry is kept;
+ * a bounded context keeps only the most recent entries, in a ring buffer,
+ * and counts the entries it drops. Whether the context is clean is tracked
+ * as entries are stored, so {@link #isClean()} does not walk the entries.</p>
+ *
+ * <p>A context created with an appender also forwards its entries to its
+ * logger, asynchronously, through the {@link ContextAppender}. Contexts
+ * created without an appender only store their entries.</p>
+ */
 public class Context {
 
     public enum Type {
@@ -63,23 +81,162 @@ public class Context {
     }
 
     public static Context create(Class<?> c, Logger logger) {
-        return new Context(logger);
+        return create(c, logger, (ContextAppender) null);
+    }
+
+    /**
+     * Creates a context that forwards its entries to the parameter logger
+     * through the parameter appender.
+     *
+     * @param c The class creating the context
+     * @param logger The logger for the context, or null
+     * @param appender The appender to forward entries with, for example
+     *                 {@link ContextAppender#getDefault()}, or null to only
+     *                 store the entries
+     * @return The context
+     */
+    public static Context create(Class<?> c, Logger logger, ContextAppender appender) {
+        return new Context(logger, appender, new Unbounded());
+    }
+
+    /**
+     * Creates a context that keeps at most <code>capacity</code> entries.
+     * When the context is full the oldest entry is dropped for each entry
+     * stored, so a runaway error loop can't grow the heap without limit.
+     *
+     * @param c The class creating the context
+     * @param logger The logger for the context, or null
+     * @param capacity The maximum number of entries to keep
+     * @return The bounded context
+     */
+    public static Context create(Class<?> c, Logger logger, int capacity) {
+        return create(c, logger, capacity, null);
+    }
+
+    /**
+     * Creates a bounded context that forwards its entries to the parameter
+     * logger through the parameter appender. Entries dropped from the
+     * context have still been forwarded.
+     *
+     * @param c The class creating the context
+     * @param logger The logger for the context, or null
+     * @param capacity The maximum number of entries to keep
+     * @param appender The appender to forward entries with, or null to only
+     *                 store the entries
+     * @return The bounded context
+     * @see #create(Class, Logger, int)
+     */
+    public static Context create(Class<?> c, Logger logger, int capacity, ContextAppender appender) {
+        return new Context(logger, appender, new Bounded(capacity));
+    }
+
+    /**
+     * The entry storage strategy.
+     */
+    private interface Store {
+
+        void add(Entry entry);
+
+        List<Entry> snapshot();
+
+        long getDroppedCount();
     }
 
-    private final Vector<Entry> entries = new Vector<>();
+    private static class Unbounded implements Store {
+
+        private final Queue<Entry> entries = new ConcurrentLinkedQueue<>();
+
+        @Override
+        public void add(Entry entry) {
+            entries.add(entry);
+        }
+
+        @Override
+        public List<Entry> snapshot() {
+            return new ArrayList<>(entries);
+        }
+
+        @Override
+        public long getDroppedCount() {
+            return 0L;
+        }
+    }
+
+    private static class Bounded implements Store {
+
+        private static final class Slot {
+
+            final long sequence;
+
+            final Entry entry;
+
+            Slot(long sequence, Entry entry) {
+                this.sequence = sequence;
+                this.entry = entry;
+            }
+        }
+
+        private final AtomicReferenceArray<Slot> slots;
+
+        private final AtomicLong next = new AtomicLong();
+
+        Bounded(int capacity) {
+            if (capacity < 1)
+                throw new IllegalArgumentException("Invalid capacity: " + capacity);
+            slots = new AtomicReferenceArray<>(capacity);
+        }
+
+        @Override
+        public void add(Entry entry) {
+            long sequence = next.getAndIncrement();
+            slots.set((int) (sequence % slots.length()), new Slot(sequence, entry));
+        }
+
+        @Override
+        public List<Entry> snapshot() {
+            long end = next.get();
+            long start = Math.max(0L, end - slots.length());
+            List<Entry> entries = new ArrayList<>((int) (end - start));
+            for (long sequence = start; sequence < end; ++sequence) {
+                Slot slot = slots.get((int) (sequence % slots.length()));
+                // Skip slots that are still being written, or already overwritten:
+                if (null != slot && slot.sequence == sequence)
+                    entries.add(slot.entry);
+            }
+            return entries;
+        }
+
+        @Override
+        public long getDroppedCount() {
+            return Math.max(0L, next.get() - slots.length());
+        }
+    }
+
+    private final Store entries;
+
+    /**
+     * Set on the first dirty entry, and never cleared.
+     */
+    private volatile boolean dirty = false;
 
     private final Logger logger;
 
-    private Context(Logger logger) {
+    private final ContextAppender appender;
+
+    private Context(Logger logger, ContextAppender appender, Store entries) {
         this.logger = logger;
+        this.appender = null != logger ? appender : null;
+        this.entries = entries;
     }
 
+    /**
+     * A context is clean until a dirty entry is stored, and it stays dirty
+     * even if the entry is later dropped from a bounded context.
+     *
+     * @return True iff no dirty entry has been stored
+     */
     public boolean isClean() {
-        for (Entry entry: entries) {
-            if (entry.type.isDirty())
-                return false;
-        }
-        return true;
+        return !dirty;
     }
 
     public void error(Class<?> c, String message, Object... params) {
@@ -111,11 +268,27 @@ public class Context {
     }
 
     private void store(Type tp, Class<?> c, Throwable t, String message, Object... params) {
-        entries.add(new Entry(tp, c, t, message, params));
+        if (tp.isDirty() && !dirty)
+            dirty = true;
+        Entry entry = new Entry(tp, c, t, message, params);
+        entries.add(entry);
+        if (null != appender)
+            appender.append(logger, entry); // Formatted later, only if enabled
     }
 
+    /**
+     * @return A snapshot of the stored entries, in the order they were stored
+     */
     public Vector<Entry> getEntries() {
-        return entries;
+        return new Vector<>(entries.snapshot());
+    }
+
+    /**
+     * @return The number of entries a bounded context has dropped to stay
+     *         within its capacity
+     */
+    public long getDroppedCount() {
+        return entries.getDroppedCount();
     }
 
     public Logger getLogger() {
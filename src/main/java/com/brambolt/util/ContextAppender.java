@@ -0,0 +1,244 @@
+package com.brambolt.util;
+
+import org.slf4j.Logger;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Forwards context entries to their loggers on a background thread.
+ *
+ * <p>Entries are handed over through a bounded queue without blocking the
+ * calling thread. The appender thread takes them off the queue in batches
+ * and logs each one only if its logger is enabled for the entry level, so
+ * messages are never formatted for disabled levels. Messages are formatted
+ * by the logger, using its parameter placeholders.</p>
+ *
+ * <p>When the queue is full, the drop policy decides whether the new entry
+ * or the oldest queued entry is dropped; either way the drop is counted.</p>
+ */
+public class ContextAppender implements Closeable {
+
+    /**
+     * What to drop when the queue is full.
+     */
+    public enum DropPolicy {
+
+        /**
+         * Drop the entry being appended, keeping the queued entries.
+         */
+        DROP_NEWEST,
+
+        /**
+         * Drop the oldest queued entry to make room for the new entry.
+         */
+        DROP_OLDEST
+    }
+
+    /**
+     * The default queue capacity.
+     */
+    public static final int DEFAULT_CAPACITY = 8192;
+
+    /**
+     * The default maximum number of entries logged per batch.
+     */
+    public static final int DEFAULT_BATCH_SIZE = 256;
+
+    private static final class Forwarded {
+
+        final Logger logger;
+
+        final Context.Entry entry;
+
+        Forwarded(Logger logger, Context.Entry entry) {
+            this.logger = logger;
+            this.entry = entry;
+        }
+    }
+
+    private static final class DefaultHolder {
+
+        static final ContextAppender DEFAULT = new ContextAppender();
+
+        static {
+            Runtime.getRuntime().addShutdownHook(new Thread(DEFAULT::close, "context-appender-shutdown"));
+        }
+    }
+
+    /**
+     * A shared appender, for contexts that opt in to forwarding with
+     * {@link Context#create(Class, Logger, ContextAppender)}. It is closed
+     * by a shutdown hook.
+     *
+     * @return The default appender
+     */
+    public static ContextAppender getDefault() {
+        return DefaultHolder.DEFAULT;
+    }
+
+    private final BlockingQueue<Forwarded> queue;
+
+    private final DropPolicy dropPolicy;
+
+    private final int batchSize;
+
+    private final AtomicLong dropped = new AtomicLong();
+
+    private final AtomicLong forwarded = new AtomicLong();
+
+    private final Thread thread;
+
+    private volatile boolean closed = false;
+
+    public ContextAppender() {
+        this(DEFAULT_CAPACITY, DEFAULT_BATCH_SIZE, DropPolicy.DROP_NEWEST);
+    }
+
+    /**
+     * Creates an appender and starts its daemon thread.
+     *
+     * @param capacity The maximum number of queued entries
+     * @param batchSize The maximum number of entries logged per batch
+     * @param dropPolicy What to drop when the queue is full
+     */
+    public ContextAppender(int capacity, int batchSize, DropPolicy dropPolicy) {
+        if (capacity < 1)
+            throw new IllegalArgumentException("Invalid capacity: " + capacity);
+        if (batchSize < 1)
+            throw new IllegalArgumentException("Invalid batch size: " + batchSize);
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.batchSize = batchSize;
+        this.dropPolicy = dropPolicy;
+        this.thread = new Thread(this::run, "context-appender");
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    /**
+     * Queues the parameter entry for logging, without blocking.
+     *
+     * @param logger The logger to forward the entry to
+     * @param entry The entry to forward
+     * @return True iff the entry was queued
+     */
+    public boolean append(Logger logger, Context.Entry entry) {
+        if (closed) {
+            dropped.incrementAndGet();
+            return false;
+        }
+        Forwarded forward = new Forwarded(logger, entry);
+        if (queue.offer(forward))
+            return true;
+        if (DropPolicy.DROP_OLDEST == dropPolicy) {
+            // Make room; another thread may take the room first, in which
+            // case the new entry is dropped after all:
+            if (null != queue.poll())
+                dropped.incrementAndGet();
+            if (queue.offer(forward))
+                return true;
+        }
+        dropped.incrementAndGet();
+        return false;
+    }
+
+    /**
+     * @return The number of entries dropped because the queue was full, the
+     *         appender was closed or the logger failed
+     */
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    /**
+     * @return The number of entries taken off the queue, including entries
+     *         whose level was not enabled
+     */
+    public long getForwardedCount() {
+        return forwarded.get();
+    }
+
+    private void run() {
+        List<Forwarded> batch = new ArrayList<>(batchSize);
+        while (!closed || !queue.isEmpty()) {
+            try {
+                Forwarded first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (null == first)
+                    continue;
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                int failed = 0;
+                for (Forwarded forward : batch) {
+                    try {
+                        log(forward.logger, forward.entry);
+                    } catch (RuntimeException x) {
+                        // A failing logger must not stop the appender or
+                        // lose the rest of the batch:
+                        ++failed;
+                    }
+                }
+                forwarded.addAndGet(batch.size() - failed);
+                dropped.addAndGet(failed);
+            } catch (InterruptedException x) {
+                closed = true;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private static void log(Logger logger, Context.Entry entry) {
+        switch (entry.type) {
+            case DEBUG:
+                if (logger.isDebugEnabled())
+                    logger.debug(entry.message, arguments(entry));
+                break;
+            case INFO:
+                if (logger.isInfoEnabled())
+                    logger.info(entry.message, arguments(entry));
+                break;
+            case WARN:
+                if (logger.isWarnEnabled())
+                    logger.warn(entry.message, arguments(entry));
+                break;
+            case ERROR:
+            case FATAL:
+                if (logger.isErrorEnabled())
+                    logger.error(entry.message, arguments(entry));
+                break;
+        }
+    }
+
+    /**
+     * Appends the throwable, if any, to the message parameters; the logger
+     * treats a trailing throwable as the exception to log.
+     */
+    private static Object[] arguments(Context.Entry entry) {
+        Object[] params = null != entry.params ? entry.params : new Object[0];
+        if (null == entry.throwable)
+            return params;
+        Object[] arguments = new Object[params.length + 1];
+        System.arraycopy(params, 0, arguments, 0, params.length);
+        arguments[params.length] = entry.throwable;
+        return arguments;
+    }
+
+    /**
+     * Stops accepting entries, and waits up to a second for the queued
+     * entries to be logged.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        try {
+            thread.join(1000L);
+        } catch (InterruptedException x) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
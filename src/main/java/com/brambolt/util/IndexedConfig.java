@@ -0,0 +1,250 @@
+package com.brambolt.util;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Properties;
+import java.util.Set;
+
+/**
+ * An immutable, indexed view of a nested configuration map, as produced by
+ * {@link Maps#convert(Properties)}.
+ *
+ * <p>The view is built once. Every path, for example <code>a.b.c</code>, is
+ * stored in a flat hash index, so a lookup is a single hash probe instead of
+ * a split and a walk of the nesting. The nesting itself is kept as a trie,
+ * for subtree queries.</p>
+ *
+ * <p>Lookups have the same results as {@link Maps#segmentedGet(Map, String)}:
+ * a path to a nested map produces the (unmodifiable) nested map. A missing
+ * path throws a <code>NoSuchElementException</code> that names the path but
+ * does not format the configuration.</p>
+ */
+public class IndexedConfig {
+
+    /**
+     * A lookup key that has been normalized and split once, for repeated use.
+     */
+    public static class Key {
+
+        public static Key of(String segmentedKey) {
+            return new Key(segmentedKey.trim());
+        }
+
+        private final String path;
+
+        private final List<String> segments;
+
+        private Key(String path) {
+            this.path = path;
+            this.segments = Collections.unmodifiableList(Maps.convert(path));
+        }
+
+        public String getPath() {
+            return path;
+        }
+
+        public List<String> getSegments() {
+            return segments;
+        }
+
+        @Override
+        public String toString() {
+            return path;
+        }
+    }
+
+    /**
+     * A node in the trie; the value of a branch is its unmodifiable map.
+     */
+    private static final class Node {
+
+        final String path;
+
+        final Object value;
+
+        final Map<String, Node> children;
+
+        Node(String path, Object value, Map<String, Node> children) {
+            this.path = path;
+            this.value = value;
+            this.children = children;
+        }
+
+        boolean isLeaf() {
+            return children.isEmpty() && !(value instanceof Map);
+        }
+    }
+
+    /**
+     * Indexes a nested configuration map. The map is copied, so later
+     * changes to it do not affect the view.
+     *
+     * @param nested The nested map to index
+     * @return The indexed view
+     * @throws IllegalArgumentException If two keys produce the same path,
+     *         which can happen if a key contains the segment separator
+     */
+    public static IndexedConfig of(Map<String, Object> nested) {
+        return new IndexedConfig(nested);
+    }
+
+    public static IndexedConfig of(Properties properties) {
+        return of(Maps.convert(properties));
+    }
+
+    private final Node root;
+
+    private final Map<String, Node> index;
+
+    /**
+     * The length of the path prefix to strip from node paths, for a subtree.
+     */
+    private final int offset;
+
+    private IndexedConfig(Map<String, Object> nested) {
+        Map<String, Node> flat = new HashMap<>();
+        this.root = build(null, nested, flat);
+        this.index = flat;
+        this.offset = 0;
+    }
+
+    private IndexedConfig(Node root, Map<String, Node> index, int offset) {
+        this.root = root;
+        this.index = index;
+        this.offset = offset;
+    }
+
+    private static int capacity(int size) {
+        return size * 4 / 3 + 1;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Node build(String path, Map<String, Object> map, Map<String, Node> flat) {
+        Map<String, Node> children = new HashMap<>(capacity(map.size()));
+        Map<String, Object> copy = new HashMap<>(capacity(map.size()));
+        for (Map.Entry<String, Object> entry : map.entrySet()) {
+            String key = entry.getKey();
+            String childPath = null == path ? key : path + "." + key;
+            Object value = entry.getValue();
+            Node child = value instanceof Map
+                ? build(childPath, (Map<String, Object>) value, flat)
+                : new Node(childPath, value, Collections.emptyMap());
+            if (null != flat.put(childPath, child))
+                throw new IllegalArgumentException("Ambiguous configuration path: " + childPath);
+            children.put(key, child);
+            copy.put(key, child.value);
+        }
+        return new Node(path, Collections.unmodifiableMap(copy), Collections.unmodifiableMap(children));
+    }
+
+    /**
+     * @return The whole configuration as an unmodifiable nested map
+     */
+    @SuppressWarnings("unchecked")
+    public Map<String, Object> asMap() {
+        return (Map<String, Object>) root.value;
+    }
+
+    public boolean contains(String segmentedKey) {
+        return index.containsKey(segmentedKey.trim());
+    }
+
+    public boolean contains(Key key) {
+        return index.containsKey(key.path);
+    }
+
+    /**
+     * Looks up the value for a segmented key like <code>a.b.c</code>.
+     *
+     * @param segmentedKey The key to look up
+     * @return The value, or the unmodifiable nested map for a branch
+     * @throws NoSuchElementException If there is no value for the key
+     */
+    public Object get(String segmentedKey) {
+        return lookup(segmentedKey.trim()).value;
+    }
+
+    /**
+     * Looks up the value for a pre-split key.
+     *
+     * @param key The key to look up
+     * @return The value, or the unmodifiable nested map for a branch
+     * @throws NoSuchElementException If there is no value for the key
+     */
+    public Object get(Key key) {
+        return lookup(key.path).value;
+    }
+
+    /**
+     * Looks up the value for a segmented key, or returns a default.
+     *
+     * @param segmentedKey The key to look up
+     * @param defaultValue The value to return if there is no value for the key
+     * @return The value, or the default
+     */
+    public Object get(String segmentedKey, Object defaultValue) {
+        Node node = index.get(segmentedKey.trim());
+        return null != node ? node.value : defaultValue;
+    }
+
+    private Node lookup(String path) {
+        Node node = index.get(path);
+        if (null == node)
+            throw new NoSuchElementException("Not found: " + path);
+        return node;
+    }
+
+    /**
+     * Produces a view of the subtree at the parameter path. Paths in the
+     * subtree view are relative to the subtree.
+     *
+     * @param segmentedKey The path to the subtree
+     * @return The subtree view
+     * @throws NoSuchElementException If there is no subtree at the path
+     */
+    public IndexedConfig subtree(String segmentedKey) {
+        Node node = lookup(segmentedKey.trim());
+        if (!(node.value instanceof Map))
+            throw new NoSuchElementException("Not a subtree: " + node.path);
+        Map<String, Node> flat = new HashMap<>();
+        int subtreeOffset = node.path.length() + 1;
+        for (Node child : node.children.values())
+            collect(child, subtreeOffset, flat, false);
+        return new IndexedConfig(node, flat, subtreeOffset);
+    }
+
+    /**
+     * Lists the leaf values under the parameter path, keyed by full path, or
+     * by the path relative to the subtree for a subtree view.
+     *
+     * @param segmentedKey The path to list the leaves under
+     * @return The leaves, or an empty map if there is nothing at the path
+     */
+    public Map<String, Object> getLeaves(String segmentedKey) {
+        Node node = index.get(segmentedKey.trim());
+        if (null == node)
+            return Collections.emptyMap();
+        Map<String, Node> flat = new HashMap<>();
+        collect(node, offset, flat, true);
+        Map<String, Object> leaves = new HashMap<>(capacity(flat.size()));
+        flat.forEach((path, leaf) -> leaves.put(path, leaf.value));
+        return leaves;
+    }
+
+    private static void collect(Node node, int offset, Map<String, Node> flat, boolean leavesOnly) {
+        if (null != node.path && (!leavesOnly || node.isLeaf()))
+            flat.put(node.path.substring(offset), node);
+        for (Node child : node.children.values())
+            collect(child, offset, flat, leavesOnly);
+    }
+
+    /**
+     * @return Every path in the configuration, for branches as well as leaves
+     */
+    public Set<String> getPaths() {
+        return Collections.unmodifiableSet(index.keySet());
+    }
+}
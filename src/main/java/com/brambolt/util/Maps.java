@@ -1,12 +1,16 @@
 package com.brambolt.util;
 
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Properties;
+import java.util.concurrent.ForkJoinPool;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import static java.util.Arrays.asList;
 
@@ -72,6 +76,63 @@ public class Maps {
         }
     }
 
+    /**
+     * Merges the overwrites into the existing map, with the same results as
+     * {@link #merge(Map, Map)}, but without copying the existing map.
+     *
+     * <p>The result shares every entry and nested map the overwrites do not
+     * touch with the existing map, so the merge costs time and memory in
+     * proportion to the overwrites rather than the existing map. Nested maps
+     * in the result are persistent maps.</p>
+     *
+     * @param existing The map to merge into, which is not changed
+     * @param overwrites The map to merge
+     * @return The merged map
+     * @throws IllegalStateException If the overwrites replace a map with a
+     *         value that is not a map, or vice versa
+     */
+    public static PersistentMap<String, Object> merge(
+        PersistentMap<String, Object> existing, Map<String, Object> overwrites) {
+        PersistentMap<String, Object> results = existing;
+        for (Map.Entry<String, Object> entry : overwrites.entrySet()) {
+            Object v1 = results.get(entry.getKey());
+            Object v2 = entry.getValue();
+            results = results.plus(entry.getKey(), null != v1 ? overwritePersistent(v1, v2) : persistent(v2));
+        }
+        return results;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Object overwritePersistent(Object v1, Object v2) {
+        if ((v1 instanceof Map) != (v2 instanceof Map))
+            throw invalidOverwrite(v1, v2);
+        if (!(v2 instanceof Map))
+            return v2;
+        return merge(persistent((Map<String, Object>) v1), (Map<String, Object>) v2);
+    }
+
+    /**
+     * Converts a nested map to a persistent map, with nested maps converted
+     * as well. Persistent maps are assumed to be converted already.
+     *
+     * @param nested The map to convert
+     * @return The persistent map
+     */
+    @SuppressWarnings("unchecked")
+    public static PersistentMap<String, Object> persistent(Map<String, Object> nested) {
+        if (nested instanceof PersistentMap)
+            return (PersistentMap<String, Object>) nested;
+        PersistentMap<String, Object> results = PersistentMap.empty();
+        for (Map.Entry<String, Object> entry : nested.entrySet())
+            results = results.plus(entry.getKey(), persistent(entry.getValue()));
+        return results;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Object persistent(Object value) {
+        return value instanceof Map ? persistent((Map<String, Object>) value) : value;
+    }
+
     private static IllegalStateException invalidOverwrite(Object v1, Object v2) {
         return new IllegalStateException(
             "Invalid replacement of " + v1.toString() + " with " + v2.toString());
@@ -102,6 +163,17 @@ public class Maps {
         }
     }
 
+    /**
+     * Indexes a nested map for repeated segmented lookups.
+     *
+     * @param nested The nested map to index
+     * @return The indexed view of the map
+     * @see IndexedConfig
+     */
+    public static IndexedConfig index(Map<String, Object> nested) {
+        return IndexedConfig.of(nested);
+    }
+
     public static void throwIfNotFound(Map<String, Object> map, String key) {
         if (!map.containsKey(key))
             throw new NoSuchElementException(
@@ -112,8 +184,19 @@ public class Maps {
         return asList(segmentedKey.trim().split("\\."));
     }
 
+    /**
+     * Converts properties with segmented names, like <code>a.b.c</code>, to
+     * a nested map, like <code>{a:{b:{c:X}}}</code>.
+     *
+     * @param properties The properties to convert, including their defaults
+     * @return The nested map
+     * @throws IllegalStateException If a name is both a value and a prefix
+     *         of other names, for example <code>version</code> and
+     *         <code>version.short</code>
+     * @see #convert(Properties, Collection)
+     */
     public static Map<String, Object> convert(Properties properties) {
-        return convert(properties, getKeys(properties));
+        return convert(properties, properties.stringPropertyNames());
     }
 
     @SuppressWarnings("unchecked")
@@ -121,90 +204,178 @@ public class Maps {
         return (List<String>) java.util.Collections.list(properties.propertyNames());
     }
 
-    public static Map<String, Object> convert(Properties properties, Collection<String> keys) {
-        return keys.stream().collect(
-            HashMap::new,
-            (Map<String, Object> map, String name) -> insert(properties, name, map),
-            (Map<String, Object> m, Map<String, Object> u) -> {});
-    }
+    /**
+     * The number of names from which the conversion is done in parallel.
+     */
+    static final int PARALLEL_THRESHOLD = 1 << 14;
 
-    private static Map<String, Object> insert(Properties properties, String name, Map<String, Object> map) {
-        return insert(properties, name, map, asList(name.split("\\.")));
+    /**
+     * A property name, normalized to its segments, and its value.
+     */
+    private static final class Property {
+
+        final String path;
+
+        final String value;
+
+        Property(String path, String value) {
+            this.path = path;
+            this.value = value;
+        }
     }
 
     /**
-     * Modifies the parameter map in-place, by reading the property value
-     * for the parameter name and creating a nested structure with the value
-     * "at the bottom" of the nesting.
+     * Converts the parameter properties to a nested map.
      *
-     * For example, for the parameters <code>a.b.c.d</code>, <code>{}</code> and
-     * <code>c.d</code>, and property value <code>X</code> for the
-     * parameter name, the empty map will be modified to <code>{c:{d:X}}</code>.
+     * <p>Each name is split and inserted in a single pass, with one map
+     * lookup per segment. Large inputs are converted in parallel when more
+     * than one processor is available: the names are sorted, so all names
+     * with the same prefix are adjacent, and ranges of sorted names are
+     * built into presized maps, one level at a time. The ranges are then
+     * combined; a subtree that spans two ranges is combined recursively.</p>
      *
-     * If no value is found the nesting is still created. If the previous example
-     * is modified by removing the value <code>X</code> for <code>a.b.c.d</code>
-     * then the resulting map will be <code>{c:{}}</code>. This is so the caller
-     * can look up <code>a.b.c</code> without a null pointer exception.
+     * <p>If no value is found for a name, the nesting is still created. For
+     * example, if there is no value for <code>a.b.c</code> then the result
+     * is <code>{a:{b:{}}}</code>. This is so the caller can look up
+     * <code>a.b</code> without a null pointer exception.</p>
      *
-     * @param properties The underlying properties collection
-     * @param name The property name to look up and use for nesting
-     * @param map The out-parameter map to be modified
-     * @param segments The segments to create the nesting from
-     * @return The modified out-parameter map
+     * @param properties The properties to read the values from
+     * @param keys The property names to convert
+     * @return The nested map
+     * @throws IllegalStateException If a name is both a value and a prefix
+     *         of other names, or two names have the same segments
      */
-    private static Map<String, Object> insert(Properties properties, String name, Map<String, Object> map, List<String> segments) {
-        if (segments.size() < 1)
-            throw new IllegalArgumentException("Empty segments list [$name] [$map]");
-        String key = segments.get(0);
-        if (1 < segments.size())
-            // We're not yet at the end of the segments list... insert the tail:
-            insertTail(properties, name, map, key, segments.subList(1, segments.size()));
-        else
-            // We've reached the end of the segments list; time to put in the value:
-            insertValue(name, map, key, properties.getProperty(name));
-        // Return the map, modified to hold the parameter segments with the
-        // value for the parameter name at the botton of the nesting:
-        return map;
+    public static Map<String, Object> convert(Properties properties, Collection<String> keys) {
+        int parallelism = ForkJoinPool.getCommonPoolParallelism();
+        if (keys.size() < PARALLEL_THRESHOLD || parallelism < 2) {
+            Map<String, Object> map = new HashMap<>();
+            for (String name : keys)
+                insert(map, normalize(name), properties.getProperty(name));
+            return map;
+        }
+        Property[] sorted = new Property[keys.size()];
+        int i = 0;
+        for (String name : keys)
+            sorted[i++] = new Property(normalize(name), properties.getProperty(name));
+        int n = i;
+        Arrays.parallelSort(sorted, Comparator.comparing(property -> property.path));
+        // The end of the group starting at each index, for the current level:
+        int[] ends = new int[n];
+        int chunks = 4 * parallelism;
+        return IntStream.range(0, chunks).parallel()
+            .mapToObj(c -> build(sorted, ends, (int) ((long) c * n / chunks), (int) ((long) (c + 1) * n / chunks), 0))
+            .reduce((left, right) -> combine(null, left, right))
+            .orElseGet(HashMap::new);
     }
 
-    @SuppressWarnings("unchecked")
-    private static void insertTail(Properties properties, String name, Map<String, Object> map, String key, List<String> tail) {
-        if (!map.containsKey(key)) {
-            // The parameter map does not have a value for the key; then
-            // we create a new map that just contains the tail segments
-            // with the last segment holding an empty map:
-            map.put(key, insert(properties, name, new HashMap<>(), tail));
-            return;
-        }
-        try {
-            Object value = map.get(key);
-            // The parameter map does have a value for the key; we attempt
-            // adding the tail segments and throw an exception if the key
-            // value is not a map, or there is a similar conflict further
-            // down:
-            insert(properties, name, (Map<String, Object>) value, tail);
-        } catch (Throwable t) {
-            // We can get a ClassCastException here, for example if the value
-            // of the key `version` is 1, and we attempt to add `version.short`.
-            //
-            // Oops, the parameter segments are incompatible with the
-            // existing properties; there is no way to proceed (because
-            // overwriting is not allowed):
-            throw new RuntimeException(String.format(
-                "Property insertion for %s failed: [%s]", name, map.get(key)), t);
-        }
+    /**
+     * Drops trailing separators, which produce no segments.
+     */
+    private static String normalize(String name) {
+        int end = name.length();
+        while (0 < end && '.' == name.charAt(end - 1))
+            --end;
+        if (0 == end && !name.isEmpty())
+            throw new IllegalArgumentException("Empty segments list [" + name + "]");
+        return name.substring(0, end);
     }
 
-    private static void insertValue(String name, Map<String, Object> map, String key, String value) {
+    /**
+     * Modifies the parameter map in-place, by creating a nested structure
+     * for the segments of the parameter path, with the value "at the bottom"
+     * of the nesting. If the value is null the nesting is still created.
+     */
+    @SuppressWarnings("unchecked")
+    private static void insert(Map<String, Object> map, String path, String value) {
+        int offset = 0;
+        for (int end = path.indexOf('.'); -1 != end; end = path.indexOf('.', offset)) {
+            String key = path.substring(offset, end);
+            Object nested = map.get(key);
+            if (null == nested) {
+                nested = new HashMap<String, Object>();
+                map.put(key, nested);
+            } else if (!(nested instanceof Map))
+                // For example, the value of `version` is 1, and we attempt
+                // adding `version.short`:
+                throw conflict(path.substring(0, end), nested, path + "=" + value);
+            map = (Map<String, Object>) nested;
+            offset = end + 1;
+        }
         if (null == value)
             return; // Nothing to do
         // Don't trim the value or check for the empty string
-        if (map.containsKey(key))
-            // There is a conflict (and overwriting is not allowed):
-            throw new IllegalStateException("Second value found for property " + name + ": [" + map.get(key) + "] [" + value + "]");
-        else
-            // There is a value, and no conflict - insert it:
-            map.put(key, value);
-        // If there is no value then we do nothing
+        Object previous = map.put(path.substring(offset), value);
+        if (null != previous)
+            throw conflict(path, previous, value);
+    }
+
+    /**
+     * Builds the nested map for the parameter range of sorted properties,
+     * which share the path prefix up to the parameter offset. The group
+     * ends found while counting are kept in the parameter array, which the
+     * recursion only writes inside the group it is building.
+     */
+    private static Map<String, Object> build(Property[] sorted, int[] ends, int from, int to, int offset) {
+        // Count the segments at this level first, to presize the map:
+        int count = 0;
+        for (int i = from; i < to; i = ends[i] = next(sorted, i, to, offset))
+            ++count;
+        Map<String, Object> map = new HashMap<>(count * 4 / 3 + 1);
+        for (int i = from; i < to; ) {
+            Property property = sorted[i];
+            int next = ends[i];
+            int end = property.path.indexOf('.', offset);
+            Object value = -1 == end ? property.value : build(sorted, ends, i, next, end + 1);
+            if (null != value) {
+                Object previous = map.put(property.path.substring(offset, -1 == end ? property.path.length() : end), value);
+                if (null != previous)
+                    throw conflict(-1 == end ? property.path : property.path.substring(0, end), previous, value);
+            }
+            i = next;
+        }
+        return map;
+    }
+
+    /**
+     * Finds the end of the group of sorted properties that starts at the
+     * parameter index. A property without a separator after the offset is
+     * a group by itself; otherwise the group is every property that shares
+     * the segment, which must be adjacent because the properties are sorted.
+     */
+    private static int next(Property[] sorted, int i, int to, int offset) {
+        String path = sorted[i].path;
+        int end = path.indexOf('.', offset);
+        if (-1 == end)
+            return i + 1;
+        int length = end + 1 - offset;
+        int j = i + 1;
+        while (j < to && sorted[j].path.regionMatches(offset, path, offset, length))
+            ++j;
+        return j;
+    }
+
+    /**
+     * Combines two nested maps, by moving the entries of the right map into
+     * the left map and combining the subtrees both maps have.
+     */
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> combine(String path, Map<String, Object> left, Map<String, Object> right) {
+        for (Map.Entry<String, Object> entry : right.entrySet()) {
+            String key = entry.getKey();
+            String childPath = null == path ? key : path + "." + key;
+            Object r = entry.getValue();
+            Object l = left.putIfAbsent(key, r);
+            if (null == l)
+                continue;
+            if (!(l instanceof Map) || !(r instanceof Map))
+                throw conflict(childPath, l, r);
+            combine(childPath, (Map<String, Object>) l, (Map<String, Object>) r);
+        }
+        return left;
+    }
+
+    private static IllegalStateException conflict(String path, Object v1, Object v2) {
+        // Overwriting is not allowed:
+        return new IllegalStateException("Second value found for property " + path + ": [" + v1 + "] [" + v2 + "]");
     }
 }
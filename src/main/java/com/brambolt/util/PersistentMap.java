@@ -0,0 +1,387 @@
+package com.brambolt.util;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * An immutable map implemented as a hash array mapped trie.
+ *
+ * <p>Updates produce new maps that share every unchanged part of the trie
+ * with the original, so an update costs time and memory proportional to the
+ * depth of the trie (logarithmic in the size), not to the size of the map.
+ * The map is read-only through the <code>Map</code> interface; use
+ * {@link #plus(Object, Object)} and {@link #minus(Object)} instead.</p>
+ *
+ * <p>Keys may not be null. Values may be null.</p>
+ *
+ * @param <K> The key type
+ * @param <V> The value type
+ * @see Maps#merge(PersistentMap, Map)
+ */
+public final class PersistentMap<K, V> extends AbstractMap<K, V> {
+
+    private static final Object NOT_FOUND = new Object();
+
+    @SuppressWarnings("rawtypes")
+    private static final PersistentMap EMPTY = new PersistentMap<>(null, 0);
+
+    @SuppressWarnings("unchecked")
+    public static <K, V> PersistentMap<K, V> empty() {
+        return (PersistentMap<K, V>) EMPTY;
+    }
+
+    /**
+     * Copies the parameter map into a persistent map. Nested maps are not
+     * converted.
+     *
+     * @param <K> The key type
+     * @param <V> The value type
+     * @param map The map to copy
+     * @return The persistent map
+     */
+    @SuppressWarnings("unchecked")
+    public static <K, V> PersistentMap<K, V> of(Map<? extends K, ? extends V> map) {
+        if (map instanceof PersistentMap)
+            return (PersistentMap<K, V>) map;
+        PersistentMap<K, V> result = empty();
+        for (Map.Entry<? extends K, ? extends V> entry : map.entrySet())
+            result = result.plus(entry.getKey(), entry.getValue());
+        return result;
+    }
+
+    private final Node root;
+
+    private final int size;
+
+    private PersistentMap(Node root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    private static int hash(Object key) {
+        int h = key.hashCode();
+        return h ^ (h >>> 16);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return null != key && null != root && NOT_FOUND != root.find(0, hash(key), key);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V get(Object key) {
+        if (null == key || null == root)
+            return null;
+        Object value = root.find(0, hash(key), key);
+        return NOT_FOUND != value ? (V) value : null;
+    }
+
+    /**
+     * Associates the parameter value with the parameter key.
+     *
+     * @param key The key
+     * @param value The value
+     * @return A map with the association, or this map if the key is already
+     *         associated with the identical value
+     */
+    public PersistentMap<K, V> plus(K key, V value) {
+        if (null == key)
+            throw new NullPointerException("Null key");
+        boolean[] added = new boolean[1];
+        Node node = (null != root ? root : BitmapNode.EMPTY).assoc(0, hash(key), key, value, added);
+        if (node == root)
+            return this;
+        return new PersistentMap<>(node, added[0] ? size + 1 : size);
+    }
+
+    /**
+     * Removes the association for the parameter key.
+     *
+     * @param key The key
+     * @return A map without the key, or this map if the key is not present
+     */
+    public PersistentMap<K, V> minus(Object key) {
+        if (null == key || null == root)
+            return this;
+        Node node = root.without(0, hash(key), key);
+        if (node == root)
+            return this;
+        return null != node ? new PersistentMap<>(node, size - 1) : empty();
+    }
+
+    @Override
+    public Set<Map.Entry<K, V>> entrySet() {
+        return new AbstractSet<Map.Entry<K, V>>() {
+
+            @Override
+            public Iterator<Map.Entry<K, V>> iterator() {
+                return new EntryIterator<>(root);
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    private interface Node {
+
+        Object find(int shift, int hash, Object key);
+
+        Node assoc(int shift, int hash, Object key, Object value, boolean[] added);
+
+        /**
+         * @return The node without the key, or null if the node is left empty
+         */
+        Node without(int shift, int hash, Object key);
+
+        /**
+         * The slots hold key-value pairs; a null key means the value is a child node.
+         */
+        Object[] slots();
+    }
+
+    private static int bit(int hash, int shift) {
+        return 1 << ((hash >>> shift) & 0x1f);
+    }
+
+    private static Object[] set(Object[] array, int i, Object a) {
+        Object[] copy = array.clone();
+        copy[i] = a;
+        return copy;
+    }
+
+    private static Object[] set(Object[] array, int i, Object a, int j, Object b) {
+        Object[] copy = array.clone();
+        copy[i] = a;
+        copy[j] = b;
+        return copy;
+    }
+
+    private static Object[] removePair(Object[] array, int pair) {
+        Object[] copy = new Object[array.length - 2];
+        System.arraycopy(array, 0, copy, 0, 2 * pair);
+        System.arraycopy(array, 2 * (pair + 1), copy, 2 * pair, copy.length - 2 * pair);
+        return copy;
+    }
+
+    private static Node createNode(int shift, Object key1, Object value1, int hash2, Object key2, Object value2) {
+        int hash1 = hash(key1);
+        if (hash1 == hash2)
+            return new CollisionNode(hash1, new Object[] { key1, value1, key2, value2 });
+        boolean[] added = new boolean[1];
+        return BitmapNode.EMPTY
+            .assoc(shift, hash1, key1, value1, added)
+            .assoc(shift, hash2, key2, value2, added);
+    }
+
+    private static final class BitmapNode implements Node {
+
+        static final BitmapNode EMPTY = new BitmapNode(0, new Object[0]);
+
+        final int bitmap;
+
+        final Object[] array;
+
+        BitmapNode(int bitmap, Object[] array) {
+            this.bitmap = bitmap;
+            this.array = array;
+        }
+
+        int index(int bit) {
+            return Integer.bitCount(bitmap & (bit - 1));
+        }
+
+        @Override
+        public Object find(int shift, int hash, Object key) {
+            int bit = bit(hash, shift);
+            if (0 == (bitmap & bit))
+                return NOT_FOUND;
+            int i = index(bit);
+            Object k = array[2 * i];
+            Object v = array[2 * i + 1];
+            if (null == k)
+                return ((Node) v).find(shift + 5, hash, key);
+            return key.equals(k) ? v : NOT_FOUND;
+        }
+
+        @Override
+        public Node assoc(int shift, int hash, Object key, Object value, boolean[] added) {
+            int bit = bit(hash, shift);
+            int i = index(bit);
+            if (0 == (bitmap & bit)) {
+                int n = Integer.bitCount(bitmap);
+                Object[] copy = new Object[2 * (n + 1)];
+                System.arraycopy(array, 0, copy, 0, 2 * i);
+                copy[2 * i] = key;
+                copy[2 * i + 1] = value;
+                System.arraycopy(array, 2 * i, copy, 2 * (i + 1), 2 * (n - i));
+                added[0] = true;
+                return new BitmapNode(bitmap | bit, copy);
+            }
+            Object k = array[2 * i];
+            Object v = array[2 * i + 1];
+            if (null == k) {
+                Node child = ((Node) v).assoc(shift + 5, hash, key, value, added);
+                return child == v ? this : new BitmapNode(bitmap, set(array, 2 * i + 1, child));
+            }
+            if (key.equals(k))
+                return v == value ? this : new BitmapNode(bitmap, set(array, 2 * i + 1, value));
+            added[0] = true;
+            return new BitmapNode(bitmap, set(array,
+                2 * i, null,
+                2 * i + 1, createNode(shift + 5, k, v, hash, key, value)));
+        }
+
+        @Override
+        public Node without(int shift, int hash, Object key) {
+            int bit = bit(hash, shift);
+            if (0 == (bitmap & bit))
+                return this;
+            int i = index(bit);
+            Object k = array[2 * i];
+            Object v = array[2 * i + 1];
+            if (null == k) {
+                Node child = ((Node) v).without(shift + 5, hash, key);
+                if (child == v)
+                    return this;
+                if (null != child)
+                    return new BitmapNode(bitmap, set(array, 2 * i + 1, child));
+            } else if (!key.equals(k))
+                return this;
+            return bitmap == bit ? null : new BitmapNode(bitmap ^ bit, removePair(array, i));
+        }
+
+        @Override
+        public Object[] slots() {
+            return array;
+        }
+    }
+
+    private static final class CollisionNode implements Node {
+
+        final int hash;
+
+        final Object[] array;
+
+        CollisionNode(int hash, Object[] array) {
+            this.hash = hash;
+            this.array = array;
+        }
+
+        int indexOf(Object key) {
+            for (int i = 0; i < array.length; i += 2)
+                if (key.equals(array[i]))
+                    return i;
+            return -1;
+        }
+
+        @Override
+        public Object find(int shift, int hash, Object key) {
+            if (hash != this.hash)
+                return NOT_FOUND;
+            int i = indexOf(key);
+            return -1 < i ? array[i + 1] : NOT_FOUND;
+        }
+
+        @Override
+        public Node assoc(int shift, int hash, Object key, Object value, boolean[] added) {
+            if (hash != this.hash)
+                // Nest this node in a bitmap node, which tells the hashes apart:
+                return new BitmapNode(bit(this.hash, shift), new Object[] { null, this })
+                    .assoc(shift, hash, key, value, added);
+            int i = indexOf(key);
+            if (-1 < i)
+                return array[i + 1] == value ? this : new CollisionNode(hash, set(array, i + 1, value));
+            Object[] copy = Arrays.copyOf(array, array.length + 2);
+            copy[array.length] = key;
+            copy[array.length + 1] = value;
+            added[0] = true;
+            return new CollisionNode(hash, copy);
+        }
+
+        @Override
+        public Node without(int shift, int hash, Object key) {
+            int i = indexOf(key);
+            if (-1 == i)
+                return this;
+            return 2 == array.length ? null : new CollisionNode(hash, removePair(array, i / 2));
+        }
+
+        @Override
+        public Object[] slots() {
+            return array;
+        }
+    }
+
+    /**
+     * Iterates depth-first over the trie, with an explicit stack.
+     */
+    private static final class EntryIterator<K, V> implements Iterator<Map.Entry<K, V>> {
+
+        private final Object[][] arrays = new Object[8][];
+
+        private final int[] positions = new int[8];
+
+        private int depth = -1;
+
+        private Map.Entry<K, V> next = null;
+
+        EntryIterator(Node root) {
+            if (null != root) {
+                arrays[0] = root.slots();
+                depth = 0;
+            }
+            advance();
+        }
+
+        @SuppressWarnings("unchecked")
+        private void advance() {
+            next = null;
+            while (0 <= depth) {
+                Object[] array = arrays[depth];
+                int position = positions[depth];
+                if (array.length <= position) {
+                    --depth;
+                    continue;
+                }
+                positions[depth] = position + 2;
+                Object k = array[position];
+                Object v = array[position + 1];
+                if (null != k) {
+                    next = new SimpleImmutableEntry<>((K) k, (V) v);
+                    return;
+                }
+                ++depth;
+                arrays[depth] = ((Node) v).slots();
+                positions[depth] = 0;
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return null != next;
+        }
+
+        @Override
+        public Map.Entry<K, V> next() {
+            if (null == next)
+                throw new NoSuchElementException();
+            Map.Entry<K, V> current = next;
+            advance();
+            return current;
+        }
+    }
+}
@@ -0,0 +1,261 @@
+package com.brambolt.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.ref.WeakReference;
+import java.net.URL;
+import java.net.URLConnection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A bounded, least-recently-used cache of class path resource lookups.
+ *
+ * <p>The cache remembers the URL of each resource that was found, and also
+ * each path that was not found, so repeated misses do not search the class
+ * path again. Lookups are keyed by class loader and resource path; the class
+ * loader is only weakly referenced.</p>
+ *
+ * <p>Optionally, the content of resources up to the maximum pinned size is
+ * kept in memory when the resource is first streamed, and later streams are
+ * served from memory.</p>
+ *
+ * <p>The cache does not notice resources that are added to or removed from
+ * a class loader after they were looked up; use {@link #invalidate} for
+ * class loaders that change.</p>
+ *
+ * <p>Instances are thread-safe. Lookups are done outside the cache lock, so
+ * two threads missing on the same key at the same time may both look it
+ * up.</p>
+ */
+public class ResourceCache {
+
+    /**
+     * The default maximum number of cached lookups.
+     */
+    public static final int DEFAULT_MAXIMUM_SIZE = 4096;
+
+    private static final class Key {
+
+        private final WeakReference<ClassLoader> loader;
+
+        private final String path;
+
+        private final int hash;
+
+        Key(ClassLoader loader, String path) {
+            this.loader = new WeakReference<>(loader);
+            this.path = path;
+            this.hash = 31 * System.identityHashCode(loader) + path.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o)
+                return true;
+            if (!(o instanceof Key))
+                return false;
+            Key other = (Key) o;
+            ClassLoader cl = loader.get();
+            return hash == other.hash
+                && null != cl && cl == other.loader.get()
+                && path.equals(other.path);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    private static final class Lookup {
+
+        /**
+         * The resource URL, or null if the resource was not found.
+         */
+        private final URL url;
+
+        private volatile byte[] bytes = null;
+
+        Lookup(URL url) {
+            this.url = url;
+        }
+    }
+
+    private final int maximumSize;
+
+    private final int maximumPinnedSize;
+
+    private final LinkedHashMap<Key, Lookup> lookups;
+
+    private long hits = 0L;
+
+    private long misses = 0L;
+
+    private long absentHits = 0L;
+
+    private long evictions = 0L;
+
+    public ResourceCache() {
+        this(DEFAULT_MAXIMUM_SIZE, 0);
+    }
+
+    /**
+     * Creates a resource cache.
+     *
+     * @param maximumSize The maximum number of lookups to hold
+     * @param maximumPinnedSize The maximum size in bytes of a resource whose
+     *                          content is kept in memory, or zero to keep no
+     *                          content
+     */
+    public ResourceCache(int maximumSize, int maximumPinnedSize) {
+        if (maximumSize < 1)
+            throw new IllegalArgumentException("Invalid maximum size: " + maximumSize);
+        if (maximumPinnedSize < 0)
+            throw new IllegalArgumentException("Invalid maximum pinned size: " + maximumPinnedSize);
+        this.maximumSize = maximumSize;
+        this.maximumPinnedSize = maximumPinnedSize;
+        this.lookups = new LinkedHashMap<Key, Lookup>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Lookup> eldest) {
+                if (size() <= ResourceCache.this.maximumSize)
+                    return false;
+                ++evictions;
+                return true;
+            }
+        };
+    }
+
+    private Lookup lookup(ClassLoader loader, String path) {
+        Key key = new Key(loader, path);
+        synchronized (this) {
+            Lookup cached = lookups.get(key);
+            if (null != cached) {
+                ++hits;
+                if (null == cached.url)
+                    ++absentHits;
+                return cached;
+            }
+            ++misses;
+        }
+        Lookup loaded = new Lookup(loader.getResource(path));
+        synchronized (this) {
+            lookups.put(key, loaded);
+        }
+        return loaded;
+    }
+
+    /**
+     * Finds the parameter resource.
+     *
+     * @param loader The class loader to find the resource with
+     * @param path The resource path
+     * @return The resource URL, or null if the resource does not exist
+     */
+    public URL getResource(ClassLoader loader, String path) {
+        return lookup(loader, path).url;
+    }
+
+    /**
+     * Opens the parameter resource.
+     *
+     * @param loader The class loader to find the resource with
+     * @param path The resource path
+     * @return An input stream for the resource, or null if the resource does
+     *         not exist
+     * @throws IOException If unable to open the resource
+     */
+    public InputStream stream(ClassLoader loader, String path) throws IOException {
+        Lookup lookup = lookup(loader, path);
+        if (null == lookup.url)
+            return null;
+        byte[] bytes = lookup.bytes;
+        if (null != bytes)
+            return new ByteArrayInputStream(bytes);
+        URLConnection connection = lookup.url.openConnection();
+        long length = connection.getContentLengthLong();
+        if (length < 0 || maximumPinnedSize < length)
+            return connection.getInputStream();
+        // Small enough to pin; read it once and serve it from memory:
+        try (InputStream is = connection.getInputStream()) {
+            bytes = Streams.bytes(is, length);
+        }
+        lookup.bytes = bytes;
+        return new ByteArrayInputStream(bytes);
+    }
+
+    /**
+     * Removes the lookups for the parameter class loader, for example after
+     * its class path has changed.
+     *
+     * @param loader The class loader to invalidate
+     */
+    public synchronized void invalidate(ClassLoader loader) {
+        Iterator<Key> keys = lookups.keySet().iterator();
+        while (keys.hasNext()) {
+            ClassLoader cl = keys.next().loader.get();
+            // Lookups for collected class loaders can go too:
+            if (null == cl || loader == cl)
+                keys.remove();
+        }
+    }
+
+    /**
+     * Removes the lookup for the parameter resource.
+     *
+     * @param loader The class loader the resource was looked up with
+     * @param path The resource path
+     */
+    public synchronized void invalidate(ClassLoader loader, String path) {
+        lookups.remove(new Key(loader, path));
+    }
+
+    /**
+     * Removes all cached lookups. The counters are not reset.
+     */
+    public synchronized void clear() {
+        lookups.clear();
+    }
+
+    public synchronized int size() {
+        return lookups.size();
+    }
+
+    public int getMaximumSize() {
+        return maximumSize;
+    }
+
+    public int getMaximumPinnedSize() {
+        return maximumPinnedSize;
+    }
+
+    public synchronized long getHitCount() {
+        return hits;
+    }
+
+    /**
+     * @return The number of hits for resources that were not found
+     */
+    public synchronized long getAbsentHitCount() {
+        return absentHits;
+    }
+
+    public synchronized long getMissCount() {
+        return misses;
+    }
+
+    public synchronized long getEvictionCount() {
+        return evictions;
+    }
+
+    /**
+     * @return The fraction of lookups that were served from the cache, or
+     *         zero if there have been no lookups
+     */
+    public synchronized double getHitRate() {
+        long lookupCount = hits + misses;
+        return 0 == lookupCount ? 0.0 : (double) hits / lookupCount;
+    }
+}
@@ -0,0 +1,232 @@
+package com.brambolt.util;
+
+import com.brambolt.text.TemplateBindings;
+import com.brambolt.text.Templates;
+
+import java.io.File;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Creates many files from template resources with the same bindings,
+ * concurrently.
+ *
+ * <p>The update methods are incremental: they only write the files whose
+ * content changes, and report the others as unchanged.</p>
+ *
+ * @see Resources#createFileFromResource(String, File, Map, Charset)
+ * @see Resources#updateFileFromResource(String, File, Map, Charset)
+ */
+public class ResourceFiles {
+
+    /**
+     * A template resource and the file to create from it.
+     */
+    public static class Target {
+
+        public final String resourcePath;
+
+        public final File targetFile;
+
+        public Target(String resourcePath, File targetFile) {
+            this.resourcePath = resourcePath;
+            this.targetFile = targetFile;
+        }
+
+        @Override
+        public String toString() {
+            return resourcePath + " -> " + targetFile;
+        }
+    }
+
+    public enum Status {
+
+        /**
+         * The file was written.
+         */
+        CREATED,
+
+        /**
+         * The file already had the rendered content, and was not written.
+         */
+        UNCHANGED,
+
+        /**
+         * The resource could not be read or the file could not be written.
+         */
+        FAILED
+    }
+
+    /**
+     * The outcome of creating one file.
+     */
+    public static class Result {
+
+        public final Target target;
+
+        public final Status status;
+
+        /**
+         * The time spent on the file, in nanoseconds.
+         */
+        public final long elapsed;
+
+        public final Throwable failure;
+
+        public Result(Target target, Status status, long elapsed, Throwable failure) {
+            this.target = target;
+            this.status = status;
+            this.elapsed = elapsed;
+            this.failure = failure;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s %s %.3f ms%s", target, status, elapsed / 1e6,
+                null != failure ? " " + failure : "");
+        }
+    }
+
+    /**
+     * Creates the parameter files, creating at most <code>concurrency</code>
+     * files at once.
+     *
+     * @param targets The resources and the files to create from them
+     * @param bindings The bindings to instantiate every resource with
+     * @param charset The charset of the resources and the files
+     * @param concurrency The maximum number of files to create at once
+     * @return The result for each file, in the order of the targets
+     * @see #create(List, Map, Charset, Executor)
+     */
+    public static List<Result> create(List<Target> targets, Map<?, ?> bindings, Charset charset, int concurrency) {
+        return run(targets, bindings, charset, concurrency, false);
+    }
+
+    /**
+     * Creates the parameter files on the parameter executor.
+     *
+     * <p>The bindings are converted to strings once, for all files. Each
+     * file is then read, instantiated and written by one task, so reads and
+     * writes of different files overlap. On Java 21 and later, an executor
+     * from <code>Executors.newVirtualThreadPerTaskExecutor()</code> runs
+     * every file on its own virtual thread.</p>
+     *
+     * <p>A file that fails does not stop the others; its failure is recorded
+     * in its result instead.</p>
+     *
+     * @param targets The resources and the files to create from them
+     * @param bindings The bindings to instantiate every resource with
+     * @param charset The charset of the resources and the files
+     * @param executor The executor to create the files on
+     * @return The result for each file, in the order of the targets
+     * @throws IllegalStateException If a binding has a null value
+     */
+    public static List<Result> create(List<Target> targets, Map<?, ?> bindings, Charset charset, Executor executor) {
+        return run(targets, bindings, charset, executor, false);
+    }
+
+    /**
+     * Creates or updates the parameter files, updating at most
+     * <code>concurrency</code> files at once.
+     *
+     * @param targets The resources and the files to create or update
+     * @param bindings The bindings to instantiate every resource with
+     * @param charset The charset of the resources and the files
+     * @param concurrency The maximum number of files to update at once
+     * @return The result for each file, in the order of the targets
+     * @see #update(List, Map, Charset, Executor)
+     */
+    public static List<Result> update(List<Target> targets, Map<?, ?> bindings, Charset charset, int concurrency) {
+        return run(targets, bindings, charset, concurrency, true);
+    }
+
+    /**
+     * Creates or updates the parameter files on the parameter executor.
+     *
+     * <p>Each rendered file is compared with the existing file as it is
+     * produced, and only written from the first difference on. A file that
+     * already has the rendered content is not written to, and keeps its
+     * modification time, so tasks that depend on it are not rerun. Its
+     * result has the status {@link Status#UNCHANGED}; use
+     * {@link #count(List, Status)} for the number of files written and
+     * skipped.</p>
+     *
+     * @param targets The resources and the files to create or update
+     * @param bindings The bindings to instantiate every resource with
+     * @param charset The charset of the resources and the files
+     * @param executor The executor to update the files on
+     * @return The result for each file, in the order of the targets
+     * @throws IllegalStateException If a binding has a null value
+     * @see Resources#updateFileFromResource(String, File, Map, Charset)
+     */
+    public static List<Result> update(List<Target> targets, Map<?, ?> bindings, Charset charset, Executor executor) {
+        return run(targets, bindings, charset, executor, true);
+    }
+
+    /**
+     * Counts the results with the parameter status.
+     *
+     * @param results The results to count
+     * @param status The status to count
+     * @return The number of results with the status
+     */
+    public static int count(List<Result> results, Status status) {
+        int count = 0;
+        for (Result result : results)
+            if (status == result.status)
+                ++count;
+        return count;
+    }
+
+    private static List<Result> run(List<Target> targets, Map<?, ?> bindings, Charset charset, int concurrency, boolean incremental) {
+        if (concurrency < 1)
+            throw new IllegalArgumentException("Invalid concurrency: " + concurrency);
+        if (targets.isEmpty())
+            return new ArrayList<>();
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(concurrency, targets.size()));
+        try {
+            return run(targets, bindings, charset, executor, incremental);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static List<Result> run(List<Target> targets, Map<?, ?> bindings, Charset charset, Executor executor, boolean incremental) {
+        TemplateBindings prepared = Templates.prepare(bindings);
+        // Resources are read with the context class loader of the caller:
+        ClassLoader loader = Thread.currentThread().getContextClassLoader();
+        List<CompletableFuture<Result>> futures = new ArrayList<>(targets.size());
+        for (Target target : targets)
+            futures.add(CompletableFuture.supplyAsync(
+                () -> run(target, prepared, charset, loader, incremental), executor));
+        List<Result> results = new ArrayList<>(targets.size());
+        for (CompletableFuture<Result> future : futures)
+            results.add(future.join());
+        return results;
+    }
+
+    private static Result run(Target target, TemplateBindings bindings, Charset charset, ClassLoader loader, boolean incremental) {
+        long start = System.nanoTime();
+        Thread thread = Thread.currentThread();
+        ClassLoader previous = thread.getContextClassLoader();
+        thread.setContextClassLoader(loader);
+        try {
+            Status status = Status.CREATED;
+            if (!incremental)
+                Resources.createFileFromResource(target.resourcePath, target.targetFile, bindings, charset);
+            else if (!Resources.updateFileFromResource(target.resourcePath, target.targetFile, bindings, charset))
+                status = Status.UNCHANGED;
+            return new Result(target, status, System.nanoTime() - start, null);
+        } catch (Exception x) {
+            return new Result(target, Status.FAILED, System.nanoTime() - start, x);
+        } finally {
+            thread.setContextClassLoader(previous);
+        }
+    }
+}
@@ -0,0 +1,241 @@
+package com.brambolt.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.JarURLConnection;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.charset.Charset;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.stream.Stream;
+
+/**
+ * An immutable, in-memory index of class path resources.
+ *
+ * <p>The index holds the content of each resource, with the paths in a
+ * sorted array for binary search, so it has no per-entry overhead beyond
+ * the path and the content.</p>
+ *
+ * @see Resources#preload(String)
+ */
+public class ResourceIndex {
+
+    public static final ResourceIndex EMPTY = new ResourceIndex(new String[0], new byte[0][]);
+
+    private final String[] paths;
+
+    private final byte[][] contents;
+
+    private ResourceIndex(String[] paths, byte[][] contents) {
+        this.paths = paths;
+        this.contents = contents;
+    }
+
+    /**
+     * Reads every resource under the parameter package, and its sub-packages,
+     * into an index. The resources are listed from directory and jar class
+     * path entries; other class path entries are skipped.
+     *
+     * @param loader The class loader to read the resources with
+     * @param packageName The package to read the resources under
+     * @return The index
+     * @throws IOException If unable to list or read the resources
+     */
+    public static ResourceIndex ofPackage(ClassLoader loader, String packageName) throws IOException {
+        return of(loader, list(loader, packageName));
+    }
+
+    /**
+     * Reads the parameter resources into an index, in parallel. Resources
+     * that are not found are left out of the index.
+     *
+     * @param loader The class loader to read the resources with
+     * @param paths The resource paths to read
+     * @return The index
+     * @throws IOException If unable to read a resource
+     */
+    public static ResourceIndex of(ClassLoader loader, Collection<String> paths) throws IOException {
+        String[] sorted = new TreeSet<>(paths).toArray(new String[0]);
+        byte[][] contents = new byte[sorted.length][];
+        try {
+            java.util.stream.IntStream.range(0, sorted.length).parallel()
+                .forEach(i -> contents[i] = read(loader, sorted[i]));
+        } catch (UncheckedIOException x) {
+            throw x.getCause();
+        }
+        int n = 0;
+        for (int i = 0; i < sorted.length; ++i)
+            if (null != contents[i]) {
+                sorted[n] = sorted[i];
+                contents[n++] = contents[i];
+            }
+        return new ResourceIndex(Arrays.copyOf(sorted, n), Arrays.copyOf(contents, n));
+    }
+
+    private static byte[] read(ClassLoader loader, String path) {
+        URL url = loader.getResource(path);
+        if (null == url)
+            return null;
+        try {
+            URLConnection connection = url.openConnection();
+            try (InputStream is = connection.getInputStream()) {
+                return Streams.bytes(is, connection.getContentLengthLong());
+            }
+        } catch (IOException x) {
+            throw new UncheckedIOException(x);
+        }
+    }
+
+    /**
+     * Lists the resources under the parameter package, and its sub-packages,
+     * in every directory and jar class path entry of the class loader.
+     *
+     * @param loader The class loader to list the resources for
+     * @param packageName The package to list the resources under
+     * @return The resource paths
+     * @throws IOException If unable to list the resources
+     */
+    public static List<String> list(ClassLoader loader, String packageName) throws IOException {
+        String packagePath = Resources.getResourcePathForPackage(packageName);
+        TreeSet<String> found = new TreeSet<>();
+        Enumeration<URL> roots = loader.getResources(packagePath);
+        while (roots.hasMoreElements()) {
+            URL root = roots.nextElement();
+            if ("file".equals(root.getProtocol()))
+                listDirectory(root, packagePath, found);
+            else if ("jar".equals(root.getProtocol()))
+                listJar(root, packagePath, found);
+        }
+        return new ArrayList<>(found);
+    }
+
+    private static void listDirectory(URL root, String packagePath, Collection<String> found) throws IOException {
+        Path directory;
+        try {
+            directory = Paths.get(root.toURI());
+        } catch (URISyntaxException x) {
+            throw new IOException("Invalid class path entry: " + root, x);
+        }
+        try (Stream<Path> files = java.nio.file.Files.walk(directory)) {
+            files.filter(java.nio.file.Files::isRegularFile).forEach(file -> {
+                StringBuilder path = new StringBuilder(packagePath);
+                for (Path segment : directory.relativize(file))
+                    path.append('/').append(segment);
+                found.add(path.toString());
+            });
+        }
+    }
+
+    private static void listJar(URL root, String packagePath, Collection<String> found) throws IOException {
+        JarURLConnection connection = (JarURLConnection) root.openConnection();
+        connection.setUseCaches(false);
+        // The package directory in the jar, which may be below a prefix
+        // like BOOT-INF/classes in a fat jar:
+        String entryPrefix = connection.getEntryName() + "/";
+        try (JarFile jar = connection.getJarFile()) {
+            Enumeration<JarEntry> entries = jar.entries();
+            while (entries.hasMoreElements()) {
+                JarEntry entry = entries.nextElement();
+                String name = entry.getName();
+                if (!entry.isDirectory() && name.startsWith(entryPrefix))
+                    found.add(packagePath + name.substring(entryPrefix.length() - 1));
+            }
+        }
+    }
+
+    private int indexOf(String path) {
+        return Arrays.binarySearch(paths, path);
+    }
+
+    public boolean contains(String path) {
+        return 0 <= indexOf(path);
+    }
+
+    /**
+     * Opens the parameter resource.
+     *
+     * @param path The resource path
+     * @return An input stream over the content, or null if the resource is
+     *         not in the index
+     */
+    public InputStream stream(String path) {
+        int i = indexOf(path);
+        return 0 <= i ? new ByteArrayInputStream(contents[i]) : null;
+    }
+
+    /**
+     * Decodes the parameter resource.
+     *
+     * @param path The resource path
+     * @param charset The charset to decode the content with
+     * @return The content, or null if the resource is not in the index
+     */
+    public String scan(String path, Charset charset) {
+        int i = indexOf(path);
+        return 0 <= i ? new String(contents[i], charset) : null;
+    }
+
+    /**
+     * Combines this index with another. Where both have a resource, the
+     * content from this index is kept.
+     *
+     * @param other The index to combine with
+     * @return The combined index
+     */
+    public ResourceIndex plus(ResourceIndex other) {
+        if (0 == other.paths.length)
+            return this;
+        if (0 == paths.length)
+            return other;
+        String[] mergedPaths = new String[paths.length + other.paths.length];
+        byte[][] mergedContents = new byte[mergedPaths.length][];
+        int i = 0, j = 0, n = 0;
+        while (i < paths.length || j < other.paths.length) {
+            int order = i == paths.length ? 1 : j == other.paths.length ? -1 : paths[i].compareTo(other.paths[j]);
+            if (order <= 0) {
+                mergedPaths[n] = paths[i];
+                mergedContents[n++] = contents[i++];
+                if (0 == order)
+                    ++j;
+            } else {
+                mergedPaths[n] = other.paths[j];
+                mergedContents[n++] = other.contents[j++];
+            }
+        }
+        return new ResourceIndex(Arrays.copyOf(mergedPaths, n), Arrays.copyOf(mergedContents, n));
+    }
+
+    /**
+     * @return The paths of the resources in the index, in sorted order
+     */
+    public List<String> getPaths() {
+        return Collections.unmodifiableList(Arrays.asList(paths));
+    }
+
+    public int size() {
+        return paths.length;
+    }
+
+    /**
+     * @return The total size in bytes of the indexed content
+     */
+    public long getByteCount() {
+        long count = 0L;
+        for (byte[] content : contents)
+            count += content.length;
+        return count;
+    }
+}
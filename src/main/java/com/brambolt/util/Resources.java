@@ -1,14 +1,27 @@
 package com.brambolt.util;
 
+import com.brambolt.nio.file.ChangeDetectingOutputStream;
+import com.brambolt.nio.file.ChannelWriter;
+import com.brambolt.text.CompiledTemplate;
+import com.brambolt.text.TemplateBindings;
+import com.brambolt.text.TemplateCache;
+import com.brambolt.text.Templates;
+
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.Writer;
+import java.lang.ref.WeakReference;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
-import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 import java.util.Map;
 
-import static com.brambolt.text.Templates.bind;
+import static com.brambolt.text.Templates.DEFAULT_DELIMITER;
 import static java.nio.charset.StandardCharsets.UTF_8;
 
 /**
@@ -16,6 +29,40 @@ import static java.nio.charset.StandardCharsets.UTF_8;
  */
 public class Resources {
 
+    /**
+     * Reads templates through the preloaded resources and the resource cache.
+     */
+    private static final TemplateCache templates = new TemplateCache(
+        TemplateCache.DEFAULT_MAXIMUM_SIZE, TemplateCache.DEFAULT_MAXIMUM_RESOURCE_SIZE, Resources::open);
+
+    private static final ResourceCache resources = new ResourceCache();
+
+    /**
+     * The preloaded resources for a class loader, which is weakly referenced.
+     */
+    private static final class Preloaded {
+
+        final WeakReference<ClassLoader> loader;
+
+        final ResourceIndex index;
+
+        Preloaded(ClassLoader loader, ResourceIndex index) {
+            this.loader = new WeakReference<>(loader);
+            this.index = index;
+        }
+    }
+
+    private static final Preloaded[] NONE_PRELOADED = new Preloaded[0];
+
+    /**
+     * The preloaded resources for each class loader. The array is replaced,
+     * never changed, so lookups read it without locking; updates are guarded
+     * by the preload lock.
+     */
+    private static volatile Preloaded[] preloaded = NONE_PRELOADED;
+
+    private static final Object preloadLock = new Object();
+
     /**
      * Converts the package name of the parameter class to a resource path.
      * @param cls The class to produce the package path for
@@ -46,11 +93,110 @@ public class Resources {
     /**
      * Opens an input stream for the parameter resource path, if the resource exists.
      *
+     * <p>The lookup goes through the resource cache, so a path that has
+     * been found or not found before is not searched for again.</p>
+     *
      * @param path An absolute resource path
      * @return An input stream for the parameter path, if the resource exists, else null
+     * @see #getResourceCache()
      */
      public static InputStream stream(String path) {
-        return Thread.currentThread().getContextClassLoader().getResourceAsStream(path);
+        try {
+            return open(Thread.currentThread().getContextClassLoader(), path);
+        } catch (IOException x) {
+            return null; // As ClassLoader.getResourceAsStream
+        }
+    }
+
+    private static InputStream open(ClassLoader loader, String path) throws IOException {
+        InputStream is = getPreloaded(loader).stream(path);
+        return null != is ? is : resources.stream(loader, path);
+    }
+
+    /**
+     * Reads every resource under the parameter package, and its sub-packages,
+     * into memory, so later calls to {@link #stream(String)} and the scan
+     * methods are served without a class loader lookup. The resources are
+     * read in parallel, with the context class loader. Preloading a resource
+     * again replaces its earlier content.
+     *
+     * @param packageName The package to preload the resources under
+     * @return The index of all preloaded resources for the context class loader
+     * @throws IOException If unable to list or read the resources
+     * @see #getResourcePathForPackage(String)
+     */
+    public static ResourceIndex preload(String packageName) throws IOException {
+        ClassLoader loader = Thread.currentThread().getContextClassLoader();
+        return addPreloaded(loader, ResourceIndex.ofPackage(loader, packageName));
+    }
+
+    /**
+     * Reads the parameter resources into memory, in parallel, with the
+     * context class loader. Resources that are not found are skipped.
+     * Preloading a resource again replaces its earlier content.
+     *
+     * @param paths The resource paths to preload
+     * @return The index of all preloaded resources for the context class loader
+     * @throws IOException If unable to read the resources
+     */
+    public static ResourceIndex preload(Collection<String> paths) throws IOException {
+        ClassLoader loader = Thread.currentThread().getContextClassLoader();
+        return addPreloaded(loader, ResourceIndex.of(loader, paths));
+    }
+
+    private static ResourceIndex addPreloaded(ClassLoader loader, ResourceIndex index) {
+        synchronized (preloadLock) {
+            List<Preloaded> updated = new ArrayList<>(preloaded.length + 1);
+            ResourceIndex combined = index;
+            for (Preloaded current : preloaded) {
+                ClassLoader currentLoader = current.loader.get();
+                if (loader == currentLoader)
+                    combined = index.plus(current.index); // The new content replaces the old
+                else if (null != currentLoader)
+                    updated.add(current); // Loaders that have been collected are dropped
+            }
+            updated.add(new Preloaded(loader, combined));
+            preloaded = updated.toArray(NONE_PRELOADED);
+            templates.clear(); // Compiled from the previous resources
+            return combined;
+        }
+    }
+
+    private static ResourceIndex getPreloaded(ClassLoader loader) {
+        for (Preloaded current : preloaded)
+            if (loader == current.loader.get())
+                return current.index;
+        return ResourceIndex.EMPTY;
+    }
+
+    /**
+     * Discards the preloaded resources, for all class loaders.
+     */
+    public static void clearPreloaded() {
+        synchronized (preloadLock) {
+            preloaded = NONE_PRELOADED;
+            templates.clear();
+        }
+    }
+
+    /**
+     * The cache of resource lookups used by {@link #stream(String)} and the
+     * methods that read resources through it.
+     *
+     * @return The resource cache, for inspecting the hit rate and for
+     *         invalidating class loaders whose class path has changed
+     */
+    public static ResourceCache getResourceCache() {
+        return resources;
+    }
+
+    /**
+     * The cache of compiled templates used when creating files from resources.
+     *
+     * @return The template cache, for inspecting the hit, miss and eviction counts
+     */
+    public static TemplateCache getTemplateCache() {
+        return templates;
     }
 
     public static String scan(String path, String charset) {
@@ -89,14 +235,150 @@ public class Resources {
     }
 
     public static File createFileFromResource(String resourcePath, File targetFile, Map<?, ?> bindings, Charset charset) throws IOException {
-        String content = scan(resourcePath, charset);
-        if (null == content)
-            throw new IllegalArgumentException("No resource found: " + resourcePath);
-        String bound = null != bindings && !bindings.isEmpty() ? bind(content, bindings) : content;
-        Files.write(targetFile.toPath(), bound.getBytes()); // CREATE, TRUNC, WRITE options
+        // Bindings for a single file are used as they are, without preparing a copy:
+        return createFileFromResource(resourcePath, targetFile, renderer(bindings), charset);
+    }
+
+    /**
+     * Instantiates the parameter template resource with bindings that have
+     * been prepared once, for example for many files.
+     *
+     * @see ResourceFiles
+     */
+    static File createFileFromResource(String resourcePath, File targetFile, TemplateBindings bindings, Charset charset) throws IOException {
+        return createFileFromResource(resourcePath, targetFile, renderer(bindings), charset);
+    }
+
+    private static File createFileFromResource(String resourcePath, File targetFile, Renderer renderer, Charset charset) throws IOException {
+        // The output is encoded into a pooled buffer and written to a
+        // file channel, without an intermediate byte stream:
+        render(resourcePath, renderer, charset,
+            () -> ChannelWriter.open(targetFile.toPath(), charset)); // CREATE, TRUNC, WRITE options
         return targetFile;
     }
 
+    /**
+     * Instantiates the parameter template resource into the target file,
+     * but only writes to the file if the rendered content differs from the
+     * content of the file. The rendered content is compared with the file
+     * as it is produced, so it is not held in memory. An unchanged file
+     * keeps its modification time. If rendering fails, the file is not
+     * truncated, so content that matched up to the failure is kept.
+     *
+     * @param resourcePath The template resource
+     * @param targetFile The file to create or update
+     * @param bindings The bindings to instantiate the template with
+     * @param charset The charset of the resource and the file
+     * @return True iff the file was created or changed, false if the file
+     *         already had the rendered content
+     * @throws IOException If unable to read the resource or update the file
+     * @see ChangeDetectingOutputStream
+     */
+    public static boolean updateFileFromResource(String resourcePath, File targetFile, Map<?, ?> bindings, Charset charset) throws IOException {
+        return updateFileFromResource(resourcePath, targetFile, renderer(bindings), charset);
+    }
+
+    static boolean updateFileFromResource(String resourcePath, File targetFile, TemplateBindings bindings, Charset charset) throws IOException {
+        return updateFileFromResource(resourcePath, targetFile, renderer(bindings), charset);
+    }
+
+    private static boolean updateFileFromResource(String resourcePath, File targetFile, Renderer renderer, Charset charset) throws IOException {
+        ChangeDetectingOutputStream[] opened = new ChangeDetectingOutputStream[1];
+        render(resourcePath, renderer, charset, new WriterOpener() {
+
+            @Override
+            public Writer open() throws IOException {
+                opened[0] = new ChangeDetectingOutputStream(targetFile.toPath());
+                return new ChannelWriter(opened[0], charset);
+            }
+
+            @Override
+            public void commit(Writer writer) throws IOException {
+                // Only truncate once the whole template has been rendered:
+                ((ChannelWriter) writer).finish();
+                opened[0].commit();
+            }
+        });
+        return opened[0].isChanged();
+    }
+
+    private interface WriterOpener {
+
+        Writer open() throws IOException;
+
+        /**
+         * Completes the output after the template has been rendered, before
+         * the writer is closed. Not called if rendering fails.
+         */
+        default void commit(Writer writer) throws IOException {
+        }
+    }
+
+    /**
+     * Renders a cached compiled template, or streams a template that is too
+     * large to cache, with either plain or prepared bindings.
+     */
+    private interface Renderer {
+
+        void render(CompiledTemplate compiled, Writer writer) throws IOException;
+
+        void render(Reader reader, Writer writer) throws IOException;
+    }
+
+    private static Renderer renderer(Map<?, ?> bindings) {
+        return new Renderer() {
+
+            @Override
+            public void render(CompiledTemplate compiled, Writer writer) throws IOException {
+                compiled.render(bindings, writer);
+            }
+
+            @Override
+            public void render(Reader reader, Writer writer) throws IOException {
+                Templates.render(reader, bindings, DEFAULT_DELIMITER, writer);
+            }
+        };
+    }
+
+    private static Renderer renderer(TemplateBindings bindings) {
+        return new Renderer() {
+
+            @Override
+            public void render(CompiledTemplate compiled, Writer writer) throws IOException {
+                bindings.render(compiled, writer);
+            }
+
+            @Override
+            public void render(Reader reader, Writer writer) throws IOException {
+                bindings.render(reader, DEFAULT_DELIMITER, writer);
+            }
+        };
+    }
+
+    private static void render(String resourcePath, Renderer renderer, Charset charset, WriterOpener opener) throws IOException {
+        CompiledTemplate compiled = templates.get(
+            Thread.currentThread().getContextClassLoader(), resourcePath, charset, DEFAULT_DELIMITER);
+        if (null != compiled) {
+            try (Writer writer = opener.open()) {
+                renderer.render(compiled, writer);
+                opener.commit(writer);
+            }
+            return;
+        }
+        // The resource is missing or too large to cache:
+        try (InputStream is = stream(resourcePath)) {
+            if (null == is)
+                throw new IllegalArgumentException("No resource found: " + resourcePath);
+            // The template is rendered as it is read, so heap use does not
+            // depend on the size of the resource:
+            try (Reader reader = new InputStreamReader(is, charset);
+                 Writer writer = opener.open()) {
+                renderer.render(reader, writer);
+                opener.commit(writer);
+            }
+        }
+    }
+
     public static File createFileFromResource(String resourcePath, String filePath, Map<?, ?> bindings) throws IOException {
         return createFileFromResource(resourcePath, new File(filePath), bindings, UTF_8.name());
     }
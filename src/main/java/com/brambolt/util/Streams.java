@@ -1,14 +1,31 @@
 package com.brambolt.util;
 
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
-import java.util.Scanner;
+import java.util.Arrays;
 
 import static com.brambolt.util.Require.notNull;
 
 public class Streams {
 
+    /**
+     * The initial read buffer size, when the stream gives no size hint.
+     */
+    static final int BUFFER_SIZE = 8192;
+
+    /**
+     * The largest thread-local buffer that is kept for reuse.
+     */
+    static final int MAX_RETAINED_BUFFER_SIZE = 1024 * 1024;
+
+    private static final int MAX_ARRAY_SIZE = Integer.MAX_VALUE - 8;
+
+    private static final ThreadLocal<byte[]> buffers =
+        ThreadLocal.withInitial(() -> new byte[BUFFER_SIZE]);
+
     public static String scan(InputStream is, String charset) {
         return scan(is, Charset.forName(charset));
     }
@@ -17,11 +34,110 @@ public class Streams {
         return scan(is, StandardCharsets.UTF_8);
     }
 
+    /**
+     * Reads the remaining content of the parameter stream into a string.
+     *
+     * <p>The bytes are read in bulk into an array sized from the stream's
+     * {@link InputStream#available()} hint, and decoded once. This is several
+     * times faster than the previous <code>Scanner</code> implementation,
+     * which matched the <code>\Z</code> regular expression over 1 KB steps.
+     * The content is returned exactly as read, and an empty stream produces
+     * the empty string.</p>
+     *
+     * <p>Malformed input is replaced, as with an input stream reader.
+     * The caller closes the stream.</p>
+     *
+     * @param is The stream to read
+     * @param charset The charset to decode the content with
+     * @return The content of the stream
+     * @throws UncheckedIOException If unable to read the stream
+     */
     public static String scan(InputStream is, Charset charset) {
+        return scan(is, charset, false);
+    }
+
+    /**
+     * Reads the remaining content of the parameter stream into a string,
+     * optionally reading through a buffer that is reused by the calling
+     * thread.
+     *
+     * <p>Reusing the buffer avoids allocating a new read buffer for every
+     * call, which helps when many small streams are scanned by the same
+     * threads. Buffers larger than 1 MB are not retained.</p>
+     *
+     * @param is The stream to read
+     * @param charset The charset to decode the content with
+     * @param reuseBuffer Whether to read through a thread-local buffer
+     * @return The content of the stream
+     * @throws UncheckedIOException If unable to read the stream
+     * @see #scan(InputStream, Charset)
+     */
+    public static String scan(InputStream is, Charset charset, boolean reuseBuffer) {
         notNull(is);
         notNull(charset);
-        try (Scanner scan = new Scanner(is, charset.name()).useDelimiter("\\Z")) {
-            return scan.next();
+        try {
+            byte[] buffer = reuseBuffer ? buffers.get() : null;
+            int hint = is.available();
+            if (null == buffer || buffer.length < hint)
+                buffer = new byte[0 < hint ? hint : BUFFER_SIZE];
+            int[] length = new int[1];
+            buffer = read(is, buffer, length);
+            if (reuseBuffer && buffer.length <= MAX_RETAINED_BUFFER_SIZE)
+                buffers.set(buffer);
+            return new String(buffer, 0, length[0], charset);
+        } catch (IOException x) {
+            throw new UncheckedIOException(x);
+        }
+    }
+
+    /**
+     * Reads the remaining content of the parameter stream into an array.
+     * The caller closes the stream.
+     *
+     * @param is The stream to read
+     * @param sizeHint The expected number of bytes, for example a content
+     *                 length, or a negative number if unknown
+     * @return The content of the stream
+     * @throws IOException If unable to read the stream
+     */
+    public static byte[] bytes(InputStream is, long sizeHint) throws IOException {
+        notNull(is);
+        int hint = 0 <= sizeHint ? (int) Math.min(sizeHint, MAX_ARRAY_SIZE) : is.available();
+        int[] length = new int[1];
+        byte[] buffer = read(is, new byte[0 < hint ? hint : BUFFER_SIZE], length);
+        return length[0] == buffer.length ? buffer : Arrays.copyOf(buffer, length[0]);
+    }
+
+    /**
+     * Reads the stream into the parameter buffer, growing it as needed.
+     *
+     * @return The buffer, which may be a new, larger array; the number of
+     *         bytes read is returned in the length parameter
+     */
+    private static byte[] read(InputStream is, byte[] buffer, int[] length) throws IOException {
+        int n = 0;
+        while (true) {
+            if (n == buffer.length) {
+                // Check for the end of the stream before growing the buffer:
+                int b = is.read();
+                if (b < 0)
+                    break;
+                buffer = grow(buffer);
+                buffer[n++] = (byte) b;
+            }
+            int count = is.read(buffer, n, buffer.length - n);
+            if (count < 0)
+                break;
+            n += count;
         }
+        length[0] = n;
+        return buffer;
+    }
+
+    private static byte[] grow(byte[] buffer) {
+        if (MAX_ARRAY_SIZE <= buffer.length)
+            throw new OutOfMemoryError("Stream content is too large");
+        int size = (int) Math.min((long) buffer.length << 1, MAX_ARRAY_SIZE);
+        return Arrays.copyOf(buffer, Math.max(size, BUFFER_SIZE));
     }
 }
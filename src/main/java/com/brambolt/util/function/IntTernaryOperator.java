@@ -0,0 +1,44 @@
+package com.brambolt.util.function;
+
+import java.util.Objects;
+import java.util.function.IntBinaryOperator;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Represents an operation upon three {@code int}-valued operands and producing
+ * an {@code int}-valued result. This is the primitive type specialization of
+ * {@link TriFunction} for {@code int}, so neither the arguments nor the
+ * result are boxed.
+ *
+ * <p>This is a <a href="package-summary.html">functional interface</a>
+ * whose functional method is {@link #applyAsInt(int, int, int)}.
+ *
+ * @see IntBinaryOperator
+ */
+@FunctionalInterface
+public interface IntTernaryOperator {
+
+    /**
+     * Applies this operator to the given operands.
+     *
+     * @param t the first operand
+     * @param u the second operand
+     * @param s the third operand
+     * @return the operator result
+     */
+    int applyAsInt(int t, int u, int s);
+
+    /**
+     * Returns a composed operator that first applies this operator to
+     * its input, and then applies the {@code after} operator to the result.
+     *
+     * @param after the operator to apply after this operator is applied
+     * @return a composed operator that first applies this operator and then
+     * applies the {@code after} operator
+     * @throws NullPointerException if after is null
+     */
+    default IntTernaryOperator andThen(IntUnaryOperator after) {
+        Objects.requireNonNull(after);
+        return (int t, int u, int s) -> after.applyAsInt(applyAsInt(t, u, s));
+    }
+}
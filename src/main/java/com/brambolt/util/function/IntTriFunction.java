@@ -0,0 +1,46 @@
+package com.brambolt.util.function;
+
+import java.util.Objects;
+import java.util.function.Function;
+
+/**
+ * Represents a function that accepts three int-valued arguments and produces
+ * a result. This is the {@code int}-consuming primitive specialization for
+ * {@link TriFunction}.
+ *
+ * <p>This is a <a href="package-summary.html">functional interface</a>
+ * whose functional method is {@link #apply(int, int, int)}.
+ *
+ * @param <R> the type of the result of the function
+ *
+ * @see TriFunction
+ */
+@FunctionalInterface
+public interface IntTriFunction<R> {
+
+    /**
+     * Applies this function to the given arguments.
+     *
+     * @param t the first argument
+     * @param u the second argument
+     * @param s the third argument
+     * @return the function result
+     */
+    R apply(int t, int u, int s);
+
+    /**
+     * Returns a composed function that first applies this function to
+     * its input, and then applies the {@code after} function to the result.
+     *
+     * @param <V> the type of output of the {@code after} function, and of the
+     *           composed function
+     * @param after the function to apply after this function is applied
+     * @return a composed function that first applies this function and then
+     * applies the {@code after} function
+     * @throws NullPointerException if after is null
+     */
+    default <V> IntTriFunction<V> andThen(Function<? super R, ? extends V> after) {
+        Objects.requireNonNull(after);
+        return (int t, int u, int s) -> after.apply(apply(t, u, s));
+    }
+}
@@ -0,0 +1,47 @@
+package com.brambolt.util.function;
+
+import java.util.Objects;
+import java.util.function.DoubleUnaryOperator;
+
+/**
+ * Represents a function that accepts three arguments and produces an
+ * double-valued result. This is the {@code double}-producing primitive
+ * specialization for {@link TriFunction}.
+ *
+ * <p>This is a <a href="package-summary.html">functional interface</a>
+ * whose functional method is {@link #applyAsDouble(Object, Object, Object)}.
+ *
+ * @param <T> the type of the first argument to the function
+ * @param <U> the type of the second argument to the function
+ * @param <S> the type of the third argument to the function
+ *
+ * @see TriFunction
+ */
+@FunctionalInterface
+public interface ToDoubleTriFunction<T, U, S> {
+
+    /**
+     * Applies this function to the given arguments.
+     *
+     * @param t the first argument
+     * @param u the second argument
+     * @param s the third argument
+     * @return the function result
+     */
+    double applyAsDouble(T t, U u, S s);
+
+    /**
+     * Returns a composed function that first applies this function to
+     * its input, and then applies the {@code after} operator to the result,
+     * without boxing.
+     *
+     * @param after the operator to apply after this function is applied
+     * @return a composed function that first applies this function and then
+     * applies the {@code after} operator
+     * @throws NullPointerException if after is null
+     */
+    default ToDoubleTriFunction<T, U, S> andThen(DoubleUnaryOperator after) {
+        Objects.requireNonNull(after);
+        return (T t, U u, S s) -> after.applyAsDouble(applyAsDouble(t, u, s));
+    }
+}
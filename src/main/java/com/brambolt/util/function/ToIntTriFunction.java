@@ -0,0 +1,47 @@
+package com.brambolt.util.function;
+
+import java.util.Objects;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Represents a function that accepts three arguments and produces an
+ * int-valued result. This is the {@code int}-producing primitive
+ * specialization for {@link TriFunction}.
+ *
+ * <p>This is a <a href="package-summary.html">functional interface</a>
+ * whose functional method is {@link #applyAsInt(Object, Object, Object)}.
+ *
+ * @param <T> the type of the first argument to the function
+ * @param <U> the type of the second argument to the function
+ * @param <S> the type of the third argument to the function
+ *
+ * @see TriFunction
+ */
+@FunctionalInterface
+public interface ToIntTriFunction<T, U, S> {
+
+    /**
+     * Applies this function to the given arguments.
+     *
+     * @param t the first argument
+     * @param u the second argument
+     * @param s the third argument
+     * @return the function result
+     */
+    int applyAsInt(T t, U u, S s);
+
+    /**
+     * Returns a composed function that first applies this function to
+     * its input, and then applies the {@code after} operator to the result,
+     * without boxing.
+     *
+     * @param after the operator to apply after this function is applied
+     * @return a composed function that first applies this function and then
+     * applies the {@code after} operator
+     * @throws NullPointerException if after is null
+     */
+    default ToIntTriFunction<T, U, S> andThen(IntUnaryOperator after) {
+        Objects.requireNonNull(after);
+        return (T t, U u, S s) -> after.applyAsInt(applyAsInt(t, u, s));
+    }
+}
@@ -0,0 +1,48 @@
+package com.brambolt.util.function;
+
+import java.util.Objects;
+import java.util.function.BiConsumer;
+
+/**
+ * Represents an operation that accepts three input arguments and returns no
+ * result. This is the three-arity specialization of
+ * {@link java.util.function.Consumer}.
+ *
+ * <p>This is a <a href="package-summary.html">functional interface</a>
+ * whose functional method is {@link #accept(Object, Object, Object)}.
+ *
+ * @param <T> the type of the first argument to the operation
+ * @param <U> the type of the second argument to the operation
+ * @param <S> the type of the third argument to the operation
+ *
+ * @see BiConsumer
+ */
+@FunctionalInterface
+public interface TriConsumer<T, U, S> {
+
+    /**
+     * Performs this operation on the given arguments.
+     *
+     * @param t the first input argument
+     * @param u the second input argument
+     * @param s the third input argument
+     */
+    void accept(T t, U u, S s);
+
+    /**
+     * Returns a composed {@code TriConsumer} that performs, in sequence, this
+     * operation followed by the {@code after} operation.
+     *
+     * @param after the operation to perform after this operation
+     * @return a composed {@code TriConsumer} that performs in sequence this
+     * operation followed by the {@code after} operation
+     * @throws NullPointerException if {@code after} is null
+     */
+    default TriConsumer<T, U, S> andThen(TriConsumer<? super T, ? super U, ? super S> after) {
+        Objects.requireNonNull(after);
+        return (T t, U u, S s) -> {
+            accept(t, u, s);
+            after.accept(t, u, s);
+        };
+    }
+}
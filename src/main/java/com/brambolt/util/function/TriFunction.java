@@ -1,5 +1,6 @@
 package com.brambolt.util.function;
 
+import java.util.Objects;
 import java.util.function.Function;
 
 /**
@@ -29,4 +30,20 @@ public interface TriFunction<T, U, S, R> {
      * @return the function result
      */
     R apply(T t, U u, S s);
+
+    /**
+     * Returns a composed function that first applies this function to
+     * its input, and then applies the {@code after} function to the result.
+     *
+     * @param <V> the type of output of the {@code after} function, and of the
+     *           composed function
+     * @param after the function to apply after this function is applied
+     * @return a composed function that first applies this function and then
+     * applies the {@code after} function
+     * @throws NullPointerException if after is null
+     */
+    default <V> TriFunction<T, U, S, V> andThen(Function<? super R, ? extends V> after) {
+        Objects.requireNonNull(after);
+        return (T t, U u, S s) -> after.apply(apply(t, u, s));
+    }
 }
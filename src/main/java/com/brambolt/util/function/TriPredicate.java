@@ -0,0 +1,73 @@
+package com.brambolt.util.function;
+
+import java.util.Objects;
+import java.util.function.BiPredicate;
+
+/**
+ * Represents a predicate (boolean-valued function) of three arguments. This
+ * is the three-arity specialization of {@link java.util.function.Predicate}.
+ *
+ * <p>This is a <a href="package-summary.html">functional interface</a>
+ * whose functional method is {@link #test(Object, Object, Object)}.
+ *
+ * @param <T> the type of the first argument to the predicate
+ * @param <U> the type of the second argument to the predicate
+ * @param <S> the type of the third argument to the predicate
+ *
+ * @see BiPredicate
+ */
+@FunctionalInterface
+public interface TriPredicate<T, U, S> {
+
+    /**
+     * Evaluates this predicate on the given arguments.
+     *
+     * @param t the first input argument
+     * @param u the second input argument
+     * @param s the third input argument
+     * @return {@code true} if the input arguments match the predicate,
+     * otherwise {@code false}
+     */
+    boolean test(T t, U u, S s);
+
+    /**
+     * Returns a composed predicate that represents a short-circuiting logical
+     * AND of this predicate and another.
+     *
+     * @param other a predicate that will be logically-ANDed with this
+     *              predicate
+     * @return a composed predicate that represents the short-circuiting logical
+     * AND of this predicate and the {@code other} predicate
+     * @throws NullPointerException if other is null
+     */
+    default TriPredicate<T, U, S> and(TriPredicate<? super T, ? super U, ? super S> other) {
+        Objects.requireNonNull(other);
+        return (T t, U u, S s) -> test(t, u, s) && other.test(t, u, s);
+    }
+
+    /**
+     * Returns a predicate that represents the logical negation of this
+     * predicate.
+     *
+     * @return a predicate that represents the logical negation of this
+     * predicate
+     */
+    default TriPredicate<T, U, S> negate() {
+        return (T t, U u, S s) -> !test(t, u, s);
+    }
+
+    /**
+     * Returns a composed predicate that represents a short-circuiting logical
+     * OR of this predicate and another.
+     *
+     * @param other a predicate that will be logically-ORed with this
+     *              predicate
+     * @return a composed predicate that represents the short-circuiting logical
+     * OR of this predicate and the {@code other} predicate
+     * @throws NullPointerException if other is null
+     */
+    default TriPredicate<T, U, S> or(TriPredicate<? super T, ? super U, ? super S> other) {
+        Objects.requireNonNull(other);
+        return (T t, U u, S s) -> test(t, u, s) || other.test(t, u, s);
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright 2017-2020 Brambolt ehf.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.brambolt.util.jar;
+
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Applies a manifest transform to many jars in parallel.
+ */
+public class ManifestRewrites {
+
+    public enum Status {
+
+        /**
+         * The manifest was changed and rewritten.
+         */
+        CHANGED,
+
+        /**
+         * The transform did not change the manifest, so the jar was not written.
+         */
+        UNCHANGED,
+
+        /**
+         * The jar could not be read or written.
+         */
+        FAILED
+    }
+
+    /**
+     * The outcome of transforming the manifest of one jar.
+     */
+    public static class Result {
+
+        public final Path jarPath;
+
+        public final Status status;
+
+        /**
+         * The time spent on the jar, in nanoseconds.
+         */
+        public final long elapsed;
+
+        public final Throwable failure;
+
+        public Result(Path jarPath, Status status, long elapsed, Throwable failure) {
+            this.jarPath = jarPath;
+            this.status = status;
+            this.elapsed = elapsed;
+            this.failure = failure;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s %s %.3f ms%s", jarPath, status, elapsed / 1e6,
+                null != failure ? " " + failure : "");
+        }
+    }
+
+    /**
+     * Applies the parameter transform to the manifests of the parameter jars,
+     * transforming at most <code>concurrency</code> jars at once.
+     *
+     * <p>A jar is only written if the transform changes its manifest. A jar
+     * that fails does not stop the others; its failure is recorded in its
+     * result instead.</p>
+     *
+     * @param jarPaths The jars to transform
+     * @param manifests The transform to apply
+     * @param concurrency The maximum number of jars to transform at once
+     * @return The result for each jar, in the order of the parameter paths
+     */
+    public static List<Result> apply(Collection<Path> jarPaths, Manifests manifests, int concurrency) {
+        if (concurrency < 1)
+            throw new IllegalArgumentException("Invalid concurrency: " + concurrency);
+        List<Result> results = new ArrayList<>(jarPaths.size());
+        if (jarPaths.isEmpty())
+            return results;
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(concurrency, jarPaths.size()));
+        try {
+            List<Future<Result>> futures = new ArrayList<>(jarPaths.size());
+            for (Path jarPath : jarPaths)
+                futures.add(executor.submit(() -> apply(jarPath, manifests)));
+            for (Future<Result> future : futures)
+                results.add(future.get());
+        } catch (InterruptedException x) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while rewriting manifests", x);
+        } catch (ExecutionException x) {
+            // Failures are caught per jar, so this is unexpected:
+            throw new IllegalStateException("Unable to rewrite manifests", x.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+        return results;
+    }
+
+    /**
+     * Applies the parameter transform to the manifest of the parameter jar.
+     *
+     * @param jarPath The jar to transform
+     * @param manifests The transform to apply
+     * @return The result
+     */
+    public static Result apply(Path jarPath, Manifests manifests) {
+        long start = System.nanoTime();
+        // The zip file system only rewrites the jar on close if it was modified:
+        try (FileSystem fs = FileSystems.newFileSystem(jarPath, (ClassLoader) null)) {
+            boolean changed = manifests.rewrite(Manifests.getPath(fs));
+            return new Result(jarPath, changed ? Status.CHANGED : Status.UNCHANGED, System.nanoTime() - start, null);
+        } catch (Exception x) {
+            return new Result(jarPath, Status.FAILED, System.nanoTime() - start, x);
+        }
+    }
+}
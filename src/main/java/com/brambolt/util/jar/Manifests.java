@@ -17,12 +17,15 @@
 package com.brambolt.util.jar;
 
 import java.io.IOException;
+import java.io.Writer;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.FileSystem;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 
 import static java.util.Arrays.asList;
@@ -61,12 +64,44 @@ public interface Manifests {
     }
 
     default void apply(Path manifestPath) throws IOException {
-        Files.write(
-            manifestPath,
-            (String.join("\n",
-                apply(Files.readAllLines(manifestPath))) + "\n")
-                .getBytes(StandardCharsets.UTF_8),
-            StandardOpenOption.TRUNCATE_EXISTING);
+        rewrite(manifestPath);
+    }
+
+    /**
+     * Applies this transform to the manifest at the parameter path, and
+     * rewrites the manifest only if the transform changed it.
+     *
+     * <p>The lines are written straight to the file, without joining them
+     * into a string first.</p>
+     *
+     * @param manifestPath The manifest to transform
+     * @return True iff the manifest was changed and rewritten
+     * @throws IOException If unable to read or write the manifest
+     */
+    default boolean rewrite(Path manifestPath) throws IOException {
+        List<String> lines = Files.readAllLines(manifestPath, StandardCharsets.UTF_8);
+        List<String> applied = apply(new ArrayList<>(lines));
+        if (lines.equals(applied))
+            return false;
+        try (Writer writer = Files.newBufferedWriter(
+            manifestPath, StandardCharsets.UTF_8, StandardOpenOption.TRUNCATE_EXISTING)) {
+            for (String line : applied)
+                writer.append(line).append('\n'); // Newline before EOF
+        }
+        return true;
+    }
+
+    /**
+     * Applies this transform to the manifests of the parameter jars in
+     * parallel.
+     *
+     * @param jarPaths The jars to transform
+     * @param concurrency The maximum number of jars to transform at once
+     * @return The result for each jar, in the order of the parameter paths
+     * @see ManifestRewrites#apply(Collection, Manifests, int)
+     */
+    default List<ManifestRewrites.Result> applyAll(Collection<Path> jarPaths, int concurrency) {
+        return ManifestRewrites.apply(jarPaths, this, concurrency);
     }
 
     default String apply(String content) {
@@ -0,0 +1,447 @@
+package com.brambolt.util.zip;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+
+/**
+ * A random-access zip archive reader.
+ *
+ * <p>The archive is memory-mapped and its central directory is indexed
+ * once, when the archive is opened. Single entries are then read by seeking
+ * straight to their data, without inflating or skipping the entries before
+ * them. Stored (uncompressed) entries are returned as read-only slices of the
+ * mapping, without copying.</p>
+ *
+ * <p>ZIP64 archives are supported, up to the 2 GB limit of a single mapping.
+ * Instances are thread-safe. The mapping is released when the instance and
+ * every buffer returned from it are garbage collected.</p>
+ */
+public class MappedZipFile implements Closeable {
+
+    private static final int LOCAL_HEADER_SIGNATURE = 0x04034b50;
+
+    private static final int CENTRAL_HEADER_SIGNATURE = 0x02014b50;
+
+    private static final int END_SIGNATURE = 0x06054b50;
+
+    private static final int ZIP64_END_SIGNATURE = 0x06064b50;
+
+    private static final int ZIP64_LOCATOR_SIGNATURE = 0x07064b50;
+
+    private static final int END_SIZE = 22;
+
+    private static final int ZIP64_LOCATOR_SIZE = 20;
+
+    private static final int ZIP64_EXTRA_ID = 0x0001;
+
+    private static final int UTF8_FLAG = 0x800;
+
+    /**
+     * The metadata of an entry, as read from the central directory.
+     */
+    public static class Entry {
+
+        private final String name;
+
+        private final int method;
+
+        private final long crc;
+
+        private final long compressedSize;
+
+        private final long size;
+
+        private final long localHeaderOffset;
+
+        Entry(String name, int method, long crc, long compressedSize, long size, long localHeaderOffset) {
+            this.name = name;
+            this.method = method;
+            this.crc = crc;
+            this.compressedSize = compressedSize;
+            this.size = size;
+            this.localHeaderOffset = localHeaderOffset;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * @return The compression method, as for <code>ZipEntry.getMethod</code>
+         */
+        public int getMethod() {
+            return method;
+        }
+
+        public boolean isStored() {
+            return ZipEntry.STORED == method;
+        }
+
+        public boolean isDirectory() {
+            return name.endsWith("/");
+        }
+
+        public long getCrc() {
+            return crc;
+        }
+
+        public long getCompressedSize() {
+            return compressedSize;
+        }
+
+        public long getSize() {
+            return size;
+        }
+    }
+
+    /**
+     * Opens and indexes the parameter archive, decoding entry names that are
+     * not flagged as UTF-8 with UTF-8.
+     *
+     * @param path The archive to open
+     * @return The indexed archive
+     * @throws IOException If unable to map the archive or read its central directory
+     */
+    public static MappedZipFile open(Path path) throws IOException {
+        return open(path, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Opens and indexes the parameter archive.
+     *
+     * @param path The archive to open
+     * @param charset The charset for entry names that are not flagged as UTF-8
+     * @return The indexed archive
+     * @throws IOException If unable to map the archive or read its central directory
+     */
+    public static MappedZipFile open(Path path, Charset charset) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (Integer.MAX_VALUE < size)
+                throw new ZipException("Archive is too large to map: " + path);
+            ByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            return new MappedZipFile(path, mapped.order(ByteOrder.LITTLE_ENDIAN), charset);
+        }
+    }
+
+    private final Path path;
+
+    private volatile ByteBuffer mapped;
+
+    private final Map<String, Entry> entries;
+
+    private MappedZipFile(Path path, ByteBuffer mapped, Charset charset) throws ZipException {
+        this.path = path;
+        this.mapped = mapped;
+        this.entries = Collections.unmodifiableMap(index(mapped, charset));
+    }
+
+    private Map<String, Entry> index(ByteBuffer buffer, Charset charset) throws ZipException {
+        int end = findEnd(buffer);
+        long count = u16(buffer, end + 10);
+        long centralSize = u32(buffer, end + 12);
+        long centralOffset = u32(buffer, end + 16);
+        int locator = end - ZIP64_LOCATOR_SIZE;
+        if (0 <= locator && ZIP64_LOCATOR_SIGNATURE == buffer.getInt(locator)) {
+            int zip64End = checkedOffset(buffer, buffer.getLong(locator + 8), 56);
+            if (ZIP64_END_SIGNATURE != buffer.getInt(zip64End))
+                throw new ZipException("Invalid ZIP64 end record: " + path);
+            count = buffer.getLong(zip64End + 32);
+            centralSize = buffer.getLong(zip64End + 40);
+            centralOffset = buffer.getLong(zip64End + 48);
+        }
+        int position = checkedOffset(buffer, centralOffset, centralSize);
+        // Each central directory header takes at least 46 bytes:
+        if (count < 0 || centralSize / 46 < count)
+            throw new ZipException("Invalid entry count " + count + " in " + path);
+        Map<String, Entry> index = new HashMap<>((int) (count * 4 / 3 + 1));
+        for (long i = 0; i < count; ++i) {
+            checkedOffset(buffer, position, 46);
+            if (CENTRAL_HEADER_SIGNATURE != buffer.getInt(position))
+                throw new ZipException("Invalid central directory header: " + path);
+            int flags = u16(buffer, position + 8);
+            int method = u16(buffer, position + 10);
+            long crc = u32(buffer, position + 16);
+            long compressedSize = u32(buffer, position + 20);
+            long size = u32(buffer, position + 24);
+            int nameLength = u16(buffer, position + 28);
+            int extraLength = u16(buffer, position + 30);
+            int commentLength = u16(buffer, position + 32);
+            long localHeaderOffset = u32(buffer, position + 42);
+            int name = position + 46;
+            checkedOffset(buffer, name, nameLength + extraLength);
+            // Sizes and offsets that overflow 32 bits are in the ZIP64 extra field:
+            int extra = name + nameLength;
+            int extraEnd = extra + extraLength;
+            while (extra + 4 <= extraEnd) {
+                int id = u16(buffer, extra);
+                int length = u16(buffer, extra + 2);
+                if (ZIP64_EXTRA_ID == id) {
+                    int field = extra + 4;
+                    int fieldEnd = Math.min(field + length, extraEnd);
+                    if (0xFFFFFFFFL == size) {
+                        size = zip64Value(buffer, field, fieldEnd);
+                        field += 8;
+                    }
+                    if (0xFFFFFFFFL == compressedSize) {
+                        compressedSize = zip64Value(buffer, field, fieldEnd);
+                        field += 8;
+                    }
+                    if (0xFFFFFFFFL == localHeaderOffset)
+                        localHeaderOffset = zip64Value(buffer, field, fieldEnd);
+                    break;
+                }
+                extra += 4 + length;
+            }
+            byte[] bytes = new byte[nameLength];
+            ByteBuffer names = buffer.duplicate();
+            names.position(name);
+            names.get(bytes);
+            String entryName = new String(bytes, 0 != (flags & UTF8_FLAG) ? StandardCharsets.UTF_8 : charset);
+            index.put(entryName, new Entry(entryName, method, crc, compressedSize, size, localHeaderOffset));
+            position = extraEnd + commentLength;
+        }
+        return index;
+    }
+
+    /**
+     * Reads a value from a ZIP64 extra field that ends at the parameter
+     * offset, rejecting a field too short to hold it.
+     */
+    private long zip64Value(ByteBuffer buffer, int field, int fieldEnd) throws ZipException {
+        if (fieldEnd < field + 8)
+            throw new ZipException("Truncated ZIP64 extra field: " + path);
+        long value = buffer.getLong(field);
+        if (value < 0)
+            throw new ZipException("Invalid ZIP64 value " + value + " in " + path);
+        return value;
+    }
+
+    private int findEnd(ByteBuffer buffer) throws ZipException {
+        int last = buffer.limit() - END_SIZE;
+        int first = Math.max(0, last - 0xFFFF); // The comment is at most 64 KB
+        for (int i = last; first <= i; --i)
+            if (END_SIGNATURE == buffer.getInt(i))
+                return i;
+        throw new ZipException("No central directory found: " + path);
+    }
+
+    private int checkedOffset(ByteBuffer buffer, long offset, long length) throws ZipException {
+        if (offset < 0 || length < 0 || buffer.limit() < offset + length)
+            throw new ZipException("Invalid offset " + offset + " in " + path);
+        return (int) offset;
+    }
+
+    private static int u16(ByteBuffer buffer, int offset) {
+        return buffer.getShort(offset) & 0xffff;
+    }
+
+    private static long u32(ByteBuffer buffer, int offset) {
+        return buffer.getInt(offset) & 0xffffffffL;
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    /**
+     * @return The entry names, in no particular order
+     */
+    public Set<String> getNames() {
+        return entries.keySet();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * @param name The entry name
+     * @return The entry metadata, or null if there is no such entry
+     */
+    public Entry getEntry(String name) {
+        return entries.get(name);
+    }
+
+    /**
+     * Locates the raw (possibly compressed) data of the parameter entry.
+     *
+     * @param entry The entry to locate
+     * @return A read-only slice of the mapping holding the entry data
+     * @throws ClosedChannelException If the archive is closed
+     * @throws IOException If the local header is invalid
+     */
+    public ByteBuffer getRawData(Entry entry) throws IOException {
+        // Read the mapping once, since a concurrent close clears it:
+        ByteBuffer buffer = mapped;
+        if (null == buffer)
+            throw new ClosedChannelException();
+        int header = checkedOffset(buffer, entry.localHeaderOffset, 30);
+        if (LOCAL_HEADER_SIGNATURE != buffer.getInt(header))
+            throw new ZipException("Invalid local header for " + entry.name + ": " + path);
+        long data = (long) header + 30 + u16(buffer, header + 26) + u16(buffer, header + 28);
+        int start = checkedOffset(buffer, data, entry.compressedSize);
+        ByteBuffer slice = buffer.asReadOnlyBuffer();
+        slice.position(start);
+        slice.limit(start + (int) entry.compressedSize);
+        return slice.slice();
+    }
+
+    /**
+     * Reads the content of the parameter entry.
+     *
+     * <p>Stored entries are returned as read-only slices of the mapping,
+     * without copying. Compressed entries are inflated into a heap buffer.</p>
+     *
+     * @param name The entry name
+     * @return The entry content, or null if there is no such entry
+     * @throws IOException If unable to read the entry
+     */
+    public ByteBuffer read(String name) throws IOException {
+        Entry entry = entries.get(name);
+        if (null == entry)
+            return null;
+        if (entry.isStored())
+            return getRawData(entry);
+        if (Integer.MAX_VALUE < entry.size)
+            throw new ZipException("Entry is too large to read into a buffer: " + name);
+        byte[] bytes = new byte[(int) entry.size];
+        try (InputStream is = getInputStream(entry)) {
+            int length = 0;
+            while (length < bytes.length) {
+                int count = is.read(bytes, length, bytes.length - length);
+                if (count < 0)
+                    throw new ZipException("Unexpected end of entry: " + name);
+                length += count;
+            }
+        }
+        return ByteBuffer.wrap(bytes);
+    }
+
+    /**
+     * Opens a stream for the content of the parameter entry.
+     *
+     * @param name The entry name
+     * @return The entry content stream, or null if there is no such entry
+     * @throws IOException If unable to read the entry
+     */
+    public InputStream getInputStream(String name) throws IOException {
+        Entry entry = entries.get(name);
+        return null != entry ? getInputStream(entry) : null;
+    }
+
+    /**
+     * Opens a stream for the content of the parameter entry.
+     *
+     * @param entry The entry to read
+     * @return The entry content stream
+     * @throws IOException If unable to read the entry
+     */
+    public InputStream getInputStream(Entry entry) throws IOException {
+        InputStream raw = new BufferInputStream(getRawData(entry));
+        switch (entry.method) {
+            case ZipEntry.STORED:
+                return raw;
+            case ZipEntry.DEFLATED:
+                Inflater inflater = new Inflater(true);
+                int bufferSize = (int) Math.max(512, Math.min(ZipFiles.BUFFER_SIZE, entry.compressedSize));
+                return new InflaterInputStream(raw, inflater, bufferSize) {
+
+                    private boolean closed = false;
+
+                    private boolean eof = false;
+
+                    @Override
+                    protected void fill() throws IOException {
+                        if (eof)
+                            throw new EOFException("Unexpected end of entry: " + entry.name);
+                        len = in.read(buf, 0, buf.length);
+                        if (-1 == len) {
+                            // The inflater may need a dummy byte after raw deflate data:
+                            buf[0] = 0;
+                            len = 1;
+                            eof = true;
+                        }
+                        inf.setInput(buf, 0, len);
+                    }
+
+                    @Override
+                    public void close() throws IOException {
+                        if (closed)
+                            return;
+                        closed = true;
+                        super.close();
+                        inflater.end();
+                    }
+                };
+            default:
+                throw new ZipException("Unsupported compression method " + entry.method + ": " + entry.name);
+        }
+    }
+
+    /**
+     * Releases the mapping. Buffers already returned remain valid.
+     */
+    @Override
+    public void close() {
+        mapped = null;
+    }
+
+    /**
+     * An input stream over the remaining bytes of a buffer.
+     */
+    private static class BufferInputStream extends InputStream {
+
+        private final ByteBuffer buffer;
+
+        BufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xff : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (0 == len)
+                return 0;
+            if (!buffer.hasRemaining())
+                return -1;
+            int count = Math.min(len, buffer.remaining());
+            buffer.get(b, off, count);
+            return count;
+        }
+
+        @Override
+        public long skip(long n) {
+            int count = (int) Math.max(0, Math.min(n, buffer.remaining()));
+            buffer.position(buffer.position() + count);
+            return count;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+    }
+}
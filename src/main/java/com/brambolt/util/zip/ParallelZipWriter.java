@@ -0,0 +1,276 @@
+package com.brambolt.util.zip;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.ZipException;
+
+/**
+ * Writes zip archives whose entries are compressed concurrently.
+ *
+ * <p>Each entry is deflated into an independent raw deflate stream on the
+ * parameter executor. The precompressed entries are then written in order,
+ * each behind its local file header, followed by the central directory.
+ * Only a bounded window of entries is compressed ahead of the writer, so
+ * memory use grows with the parallelism rather than the archive size.</p>
+ *
+ * <p>The archive layout matches what <code>ZipOutputStream</code> writes,
+ * except that sizes and checksums are stored in the local headers instead
+ * of in data descriptors. Archives that would need ZIP64 records are not
+ * supported; callers fall back to <code>ZipOutputStream</code>.</p>
+ */
+final class ParallelZipWriter {
+
+    private static final int LOCAL_HEADER_SIGNATURE = 0x04034b50;
+
+    private static final int CENTRAL_HEADER_SIGNATURE = 0x02014b50;
+
+    private static final int END_SIGNATURE = 0x06054b50;
+
+    private static final int VERSION = 20;
+
+    private static final int UTF8_FLAG = 0x800;
+
+    private static final int DEFLATED = 8;
+
+    private static final long MAX_ZIP32 = 0xFFFFFFFFL;
+
+    private static final int MAX_ZIP32_ENTRIES = 0xFFFF;
+
+    /**
+     * An entry that has been compressed and is ready to be written.
+     */
+    private static final class Compressed {
+
+        final byte[] name;
+
+        byte[] data; // Released once written
+
+        final int dataLength;
+
+        final long crc;
+
+        final long size;
+
+        long offset;
+
+        Compressed(byte[] name, byte[] data, int dataLength, long crc, long size) {
+            this.name = name;
+            this.data = data;
+            this.dataLength = dataLength;
+            this.crc = crc;
+            this.size = size;
+        }
+    }
+
+    /**
+     * Checks whether the parameter entries can be written without ZIP64
+     * records. The estimate assumes that no entry grows when compressed by
+     * more than the deflate worst case.
+     *
+     * @param content The entry content
+     * @param charset The charset to encode the content with
+     * @return True iff the archive is known to fit without ZIP64 records
+     */
+    static boolean isSupported(String[] content, Charset charset) {
+        if (MAX_ZIP32_ENTRIES < content.length)
+            return false;
+        double bytesPerChar = charset.newEncoder().maxBytesPerChar();
+        double total = 0;
+        for (String c : content)
+            total += c.length() * bytesPerChar * 1.01 + 1024; // Deflate worst case and headers
+        return total < MAX_ZIP32;
+    }
+
+    static void write(String[] content, String[] paths, Charset charset, OutputStream os, Executor executor) throws IOException {
+        if (content.length != paths.length)
+            throw new IllegalArgumentException(
+                "Content and paths differ in length: " + content.length + " != " + paths.length);
+        Set<String> names = new HashSet<>();
+        for (String path : paths)
+            if (!names.add(path))
+                throw new ZipException("duplicate entry: " + path);
+        int window = 2 * getParallelism(executor);
+        Deque<CompletableFuture<Compressed>> futures = new ArrayDeque<>(window);
+        int submitted = 0;
+        int time = dosTime(System.currentTimeMillis());
+        List<Compressed> written = new ArrayList<>(content.length);
+        long offset = 0L;
+        while (written.size() < content.length) {
+            for (; submitted < content.length && futures.size() < window; ++submitted) {
+                String c = content[submitted];
+                String path = paths[submitted];
+                futures.add(CompletableFuture.supplyAsync(() -> compress(c, path, charset), executor));
+            }
+            Compressed entry = join(futures.remove());
+            entry.offset = offset;
+            offset += writeLocalHeader(os, entry, time);
+            os.write(entry.data, 0, entry.dataLength);
+            offset += entry.dataLength;
+            entry.data = null; // Only the header fields are needed from here
+            written.add(entry);
+        }
+        long centralOffset = offset;
+        for (Compressed entry : written)
+            offset += writeCentralHeader(os, entry, time);
+        writeEnd(os, written.size(), offset - centralOffset, centralOffset);
+        os.flush();
+    }
+
+    /**
+     * Estimates how many entries the parameter executor compresses at once.
+     *
+     * @param executor The executor to compress with
+     * @return The pool size, or the processor count if it is not known
+     */
+    private static int getParallelism(Executor executor) {
+        int processors = Runtime.getRuntime().availableProcessors();
+        if (executor instanceof ForkJoinPool)
+            return ((ForkJoinPool) executor).getParallelism();
+        if (executor instanceof ThreadPoolExecutor) {
+            int core = ((ThreadPoolExecutor) executor).getCorePoolSize();
+            return 0 < core ? core : processors; // Cached pools have no core threads
+        }
+        return processors;
+    }
+
+    private static Compressed join(CompletableFuture<Compressed> future) {
+        try {
+            return future.join();
+        } catch (CompletionException x) {
+            Throwable cause = x.getCause();
+            if (cause instanceof RuntimeException)
+                throw (RuntimeException) cause;
+            if (cause instanceof Error)
+                throw (Error) cause;
+            throw x;
+        }
+    }
+
+    private static Compressed compress(String content, String path, Charset charset) {
+        byte[] bytes = content.getBytes(charset);
+        CRC32 crc = new CRC32();
+        crc.update(bytes, 0, bytes.length);
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        try {
+            deflater.setInput(bytes);
+            deflater.finish();
+            Buffer out = new Buffer(Math.max(64, bytes.length / 2));
+            byte[] chunk = new byte[Math.min(64 * 1024, Math.max(512, bytes.length))];
+            while (!deflater.finished()) {
+                int count = deflater.deflate(chunk);
+                out.write(chunk, 0, count);
+            }
+            return new Compressed(path.getBytes(StandardCharsets.UTF_8), out.array(), out.size(), crc.getValue(), bytes.length);
+        } finally {
+            deflater.end();
+        }
+    }
+
+    /**
+     * Exposes the internal array, to avoid copying the compressed data.
+     */
+    private static final class Buffer extends ByteArrayOutputStream {
+
+        Buffer(int size) {
+            super(size);
+        }
+
+        byte[] array() {
+            return buf;
+        }
+    }
+
+    private static int writeLocalHeader(OutputStream os, Compressed entry, int time) throws IOException {
+        writeInt(os, LOCAL_HEADER_SIGNATURE);
+        writeShort(os, VERSION);
+        writeShort(os, UTF8_FLAG);
+        writeShort(os, DEFLATED);
+        writeInt(os, time);
+        writeInt(os, entry.crc);
+        writeInt(os, entry.dataLength);
+        writeInt(os, entry.size);
+        writeShort(os, entry.name.length);
+        writeShort(os, 0); // Extra field length
+        os.write(entry.name);
+        return 30 + entry.name.length;
+    }
+
+    private static int writeCentralHeader(OutputStream os, Compressed entry, int time) throws IOException {
+        writeInt(os, CENTRAL_HEADER_SIGNATURE);
+        writeShort(os, VERSION); // Made by
+        writeShort(os, VERSION); // Needed to extract
+        writeShort(os, UTF8_FLAG);
+        writeShort(os, DEFLATED);
+        writeInt(os, time);
+        writeInt(os, entry.crc);
+        writeInt(os, entry.dataLength);
+        writeInt(os, entry.size);
+        writeShort(os, entry.name.length);
+        writeShort(os, 0); // Extra field length
+        writeShort(os, 0); // Comment length
+        writeShort(os, 0); // Disk number
+        writeShort(os, 0); // Internal attributes
+        writeInt(os, 0); // External attributes
+        writeInt(os, entry.offset);
+        os.write(entry.name);
+        return 46 + entry.name.length;
+    }
+
+    private static void writeEnd(OutputStream os, int count, long size, long offset) throws IOException {
+        writeInt(os, END_SIGNATURE);
+        writeShort(os, 0); // Disk number
+        writeShort(os, 0); // Disk with the central directory
+        writeShort(os, count);
+        writeShort(os, count);
+        writeInt(os, size);
+        writeInt(os, offset);
+        writeShort(os, 0); // Comment length
+    }
+
+    private static void writeShort(OutputStream os, int v) throws IOException {
+        os.write(v & 0xff);
+        os.write((v >>> 8) & 0xff);
+    }
+
+    private static void writeInt(OutputStream os, long v) throws IOException {
+        os.write((int) (v & 0xff));
+        os.write((int) ((v >>> 8) & 0xff));
+        os.write((int) ((v >>> 16) & 0xff));
+        os.write((int) ((v >>> 24) & 0xff));
+    }
+
+    /**
+     * Converts a Java time to the MS-DOS date and time format, as
+     * <code>ZipEntry</code> does.
+     */
+    private static int dosTime(long millis) {
+        Calendar c = Calendar.getInstance();
+        c.setTimeInMillis(millis);
+        int year = c.get(Calendar.YEAR);
+        if (year < 1980)
+            return (1 << 21) | (1 << 16);
+        return (year - 1980) << 25
+            | (c.get(Calendar.MONTH) + 1) << 21
+            | c.get(Calendar.DAY_OF_MONTH) << 16
+            | c.get(Calendar.HOUR_OF_DAY) << 11
+            | c.get(Calendar.MINUTE) << 5
+            | c.get(Calendar.SECOND) >> 1;
+    }
+}
@@ -1,22 +1,33 @@
 package com.brambolt.util.zip;
 
+import com.brambolt.util.ChunkedOutputStream;
 import com.brambolt.util.Streams;
 
 import java.io.BufferedInputStream;
 import java.io.BufferedOutputStream;
 import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.GatheringByteChannel;
 import java.nio.charset.Charset;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.function.BiFunction;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.Executor;
 import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipInputStream;
 import java.util.zip.ZipOutputStream;
@@ -25,12 +36,97 @@ import static com.brambolt.util.Strings.maxLength;
 
 public class ZipFiles {
 
+    static final int BUFFER_SIZE = 8192;
+
     public static byte[] bytes(String content, String path, Charset charset) throws IOException {
-        return zip(zipper(content, path, charset), content.length());
+        ChunkedOutputStream out = zip(zipper(content, path, charset));
+        try {
+            return out.toByteArray();
+        } finally {
+            out.release();
+        }
     }
 
     public static byte[] bytes(String[] content, String[] paths, Charset charset) throws IOException {
-       return zip(zipper(content, paths, charset), maxLength(content));
+        ChunkedOutputStream out = zip(zipper(content, paths, charset));
+        try {
+            return out.toByteArray();
+        } finally {
+            out.release();
+        }
+    }
+
+    /**
+     * Zips the parameter content into a buffer of the exact archive size.
+     *
+     * <p>The archive is written into pooled chunks and copied once, so no
+     * buffer is grown or over-allocated on the way.</p>
+     *
+     * @param content The entry content
+     * @param paths The entry paths, in the same order as the content
+     * @param charset The charset to encode the content with
+     * @param direct Whether to return a direct buffer
+     * @return The zip archive, in a buffer ready to be read
+     * @throws IOException If unable to write the archive
+     */
+    public static ByteBuffer buffer(String[] content, String[] paths, Charset charset, boolean direct) throws IOException {
+        ChunkedOutputStream out = zip(zipper(content, paths, charset));
+        try {
+            return out.toByteBuffer(direct);
+        } finally {
+            out.release();
+        }
+    }
+
+    /**
+     * Zips the parameter content and writes the archive to the parameter
+     * channel, with gathering writes straight from pooled chunks. The
+     * archive is never copied into a single array.
+     *
+     * @param content The entry content
+     * @param paths The entry paths, in the same order as the content
+     * @param charset The charset to encode the content with
+     * @param channel The blocking channel to write the archive to, for
+     *                example a <code>FileChannel</code>; the channel is not
+     *                closed
+     * @return The number of bytes written
+     * @throws IOException If unable to write the archive
+     * @see ChunkedOutputStream#writeTo(GatheringByteChannel)
+     */
+    public static long write(String[] content, String[] paths, Charset charset, GatheringByteChannel channel) throws IOException {
+        ChunkedOutputStream out = zip(zipper(content, paths, charset));
+        try {
+            return out.writeTo(channel);
+        } finally {
+            out.release();
+        }
+    }
+
+    /**
+     * Zips the parameter content, compressing the entries concurrently on
+     * the parameter executor.
+     *
+     * <p>Archives too large for the zip format without ZIP64 records are
+     * written sequentially instead.</p>
+     *
+     * @param content The entry content
+     * @param paths The entry paths, in the same order as the content
+     * @param charset The charset to encode the content with
+     * @param executor The executor to compress the entries on, for example
+     *                 <code>ForkJoinPool.commonPool()</code>
+     * @return The zip archive bytes
+     * @throws IOException If unable to write the archive
+     */
+    public static byte[] bytes(String[] content, String[] paths, Charset charset, Executor executor) throws IOException {
+        if (!ParallelZipWriter.isSupported(content, charset))
+            return bytes(content, paths, charset);
+        ChunkedOutputStream out = new ChunkedOutputStream();
+        try {
+            ParallelZipWriter.write(content, paths, charset, out, executor);
+            return out.toByteArray();
+        } finally {
+            out.release();
+        }
     }
 
     public static File file(String[] content, String[] paths, Charset charset) throws IOException {
@@ -45,45 +141,183 @@ public class ZipFiles {
         return file;
     }
 
+    /**
+     * Zips the parameter content to a temporary file, compressing the entries
+     * concurrently on the parameter executor.
+     *
+     * @param content The entry content
+     * @param paths The entry paths, in the same order as the content
+     * @param charset The charset to encode the content with
+     * @param deleteOnExit Whether to delete the temporary file on exit
+     * @param executor The executor to compress the entries on
+     * @return The zip file
+     * @throws IOException If unable to write the archive
+     * @see #bytes(String[], String[], Charset, Executor)
+     */
+    public static File file(String[] content, String[] paths, Charset charset, boolean deleteOnExit, Executor executor) throws IOException {
+        if (!ParallelZipWriter.isSupported(content, charset))
+            return file(content, paths, charset, deleteOnExit);
+        File file = File.createTempFile("bra", ".zip");
+        if (deleteOnExit)
+            file.deleteOnExit();
+        try (OutputStream os = new BufferedOutputStream(new FileOutputStream(file))) {
+            ParallelZipWriter.write(content, paths, charset, os, executor);
+        }
+        return file;
+    }
+
     public static String[] scan(byte[] bytes, Charset charset) throws IOException {
         return scan(new ByteArrayInputStream(bytes), charset);
     }
 
     public static String[] scan(InputStream is, Charset charset) throws IOException {
-        List<String> scanned = new ArrayList<>();
-        scan((ZipInputStream zis, FilterInputStream fis) -> scanned.add(Streams.scan(is, charset)), is);
-        return scanned.toArray(new String[0]);
+        try {
+            return entries(is)
+                .map((Entry entry) -> Streams.scan(entry.getInputStream(), charset, true))
+                .toArray(String[]::new);
+        } catch (UncheckedIOException x) {
+            throw x.getCause();
+        }
+    }
+
+    /**
+     * A zip entry visited by {@link #entries(InputStream)}.
+     */
+    public static class Entry {
+
+        private final ZipEntry entry;
+
+        private final InputStream stream;
+
+        Entry(ZipEntry entry, InputStream stream) {
+            this.entry = entry;
+            this.stream = stream;
+        }
+
+        /**
+         * @return The entry metadata as read from the local header
+         */
+        public ZipEntry getEntry() {
+            return entry;
+        }
+
+        public String getName() {
+            return entry.getName();
+        }
+
+        /**
+         * The uncompressed entry content. The stream ends at the end of the
+         * entry, and is only valid until the next entry is visited. Closing
+         * it closes the entry but not the archive.
+         *
+         * @return The entry content
+         */
+        public InputStream getInputStream() {
+            return stream;
+        }
     }
 
-    private static void scan(BiFunction<ZipInputStream, FilterInputStream, Boolean> scanner, InputStream is) throws IOException {
-        BufferedInputStream bis = new BufferedInputStream(is);
-        ZipInputStream zis = new ZipInputStream(bis);
-        try (FilterInputStream fis = new FilterInputStream(zis) {
+    /**
+     * Streams the entries of a zip archive.
+     *
+     * @param is The archive stream
+     * @return A lazy stream of the archive entries
+     * @see #entries(InputStream, int)
+     */
+    public static Stream<Entry> entries(InputStream is) {
+        return entries(is, BUFFER_SIZE);
+    }
+
+    /**
+     * Streams the entries of a zip archive lazily, in archive order.
+     *
+     * <p>Each entry is read from the archive only when the stream advances
+     * to it, and the content of an entry that is not consumed is skipped.
+     * The same inflater and read buffer are used for every entry, so an
+     * archive of any size is processed in constant memory, and short-circuit
+     * operations stop reading the archive early.</p>
+     *
+     * <p>Closing the returned stream closes the archive stream. Read errors
+     * are thrown as <code>UncheckedIOException</code>.</p>
+     *
+     * @param is The archive stream
+     * @param bufferSize The size of the buffer to read the archive through
+     * @return A lazy stream of the archive entries
+     */
+    public static Stream<Entry> entries(InputStream is, int bufferSize) {
+        ZipInputStream zis = new ZipInputStream(new BufferedInputStream(is, bufferSize));
+        InputStream entryStream = new FilterInputStream(zis) {
             @Override
             public void close() throws IOException {
                 zis.closeEntry();
             }
-        }) {
-            while (null != zis.getNextEntry())
-                scanner.apply(zis, fis);
-        }
+        };
+        Iterator<Entry> iterator = new Iterator<Entry>() {
+
+            private Entry next = null;
+
+            @Override
+            public boolean hasNext() {
+                if (null == next) {
+                    try {
+                        ZipEntry entry = zis.getNextEntry();
+                        if (null != entry)
+                            next = new Entry(entry, entryStream);
+                    } catch (IOException x) {
+                        throw new UncheckedIOException(x);
+                    }
+                }
+                return null != next;
+            }
+
+            @Override
+            public Entry next() {
+                if (!hasNext())
+                    throw new NoSuchElementException();
+                Entry current = next;
+                next = null;
+                return current;
+            }
+        };
+        return StreamSupport.stream(
+            Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED | Spliterator.NONNULL), false)
+            .onClose(() -> {
+                try {
+                    zis.close();
+                } catch (IOException x) {
+                    throw new UncheckedIOException(x);
+                }
+            });
     }
+
     private static Function<ZipOutputStream, Void> zipper(String content, String path, Charset charset) {
-        return (ZipOutputStream zos) -> zipEntry(zos, content, path, charset);
+        return (ZipOutputStream zos) -> zipEntry(zos, content, path, new EntryEncoder(charset, content.length()));
     }
 
     private static Function<ZipOutputStream, Void> zipper(String[] content, String[] paths, Charset charset ) {
         return (ZipOutputStream zos) -> {
+            EntryEncoder encoder = new EntryEncoder(charset, maxLength(content));
             for (int i = 0; i < content.length; ++i) {
-                zipEntry(zos, content[i], paths[i], charset);
+                zipEntry(zos, content[i], paths[i], encoder);
             }
             return null;
         };
     }
-    private static byte[] zip(Function<ZipOutputStream, Void> zipEntries, int bufferSize) throws IOException {
-        ByteArrayOutputStream baos = new ByteArrayOutputStream(bufferSize);
-        zip(zipEntries, baos);
-        return baos.toByteArray();
+
+    /**
+     * Zips into pooled chunks, which the caller releases.
+     */
+    private static ChunkedOutputStream zip(Function<ZipOutputStream, Void> zipEntries) throws IOException {
+        ChunkedOutputStream out = new ChunkedOutputStream();
+        // The chunks take small writes as cheaply as a buffered stream, so
+        // the zip output stream writes to them directly:
+        try (ZipOutputStream zos = new ZipOutputStream(out)) {
+            zipEntries.apply(zos);
+        } catch (IOException | RuntimeException x) {
+            out.release();
+            throw x;
+        }
+        return out;
     }
 
     private static void zip(Function<ZipOutputStream, Void> zipEntries, File file) throws IOException {
@@ -106,14 +340,84 @@ public class ZipFiles {
         }
     }
 
-    private static Void zipEntry(ZipOutputStream zos, String content, String path, Charset charset) {
+    private static Void zipEntry(ZipOutputStream zos, String content, String path, EntryEncoder encoder) {
         try {
             zos.putNextEntry(new ZipEntry(path));
-            zos.write(content.getBytes(charset));
+            encoder.encode(content, zos);
             zos.closeEntry();
         } catch (IOException x) {
             throw new RuntimeException(x);
         }
         return null;
     }
+
+    /**
+     * Encodes entry content into the zip output stream through buffers that
+     * are reused for every entry, instead of encoding each entry into a
+     * new byte array. The bytes are the same as from
+     * <code>String.getBytes</code>, including a byte order mark per entry
+     * for charsets that write one.
+     */
+    private static class EntryEncoder {
+
+        private final CharsetEncoder encoder;
+
+        private final CharBuffer chars;
+
+        private final ByteBuffer bytes;
+
+        /**
+         * @param charset The charset to encode with
+         * @param maxLength The length of the longest entry content, so small
+         *                  archives do not allocate full-size buffers
+         */
+        EntryEncoder(Charset charset, int maxLength) {
+            this.encoder = charset.newEncoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+            int length = Math.max(16, Math.min(BUFFER_SIZE, maxLength));
+            this.chars = CharBuffer.allocate(length);
+            this.bytes = ByteBuffer.allocate(Math.min(BUFFER_SIZE,
+                (int) Math.ceil(length * encoder.maxBytesPerChar()) + 16));
+        }
+
+        void encode(String content, OutputStream os) throws IOException {
+            encoder.reset();
+            chars.clear();
+            int position = 0;
+            boolean endOfInput;
+            do {
+                // Chunks are copied into the char array so the encoder works
+                // between arrays; a trailing high surrogate is carried over:
+                int n = Math.min(chars.remaining(), content.length() - position);
+                content.getChars(position, position + n, chars.array(), chars.position());
+                chars.position(chars.position() + n);
+                position += n;
+                endOfInput = content.length() == position;
+                chars.flip();
+                encode(endOfInput, os);
+                chars.compact();
+            } while (!endOfInput);
+            while (encoder.flush(bytes).isOverflow())
+                drain(os);
+            drain(os);
+        }
+
+        private void encode(boolean endOfInput, OutputStream os) throws IOException {
+            while (true) {
+                CoderResult result = encoder.encode(chars, bytes, endOfInput);
+                if (result.isUnderflow())
+                    return;
+                if (result.isOverflow())
+                    drain(os);
+                else
+                    result.throwException();
+            }
+        }
+
+        private void drain(OutputStream os) throws IOException {
+            os.write(bytes.array(), 0, bytes.position());
+            bytes.clear();
+        }
+    }
 }
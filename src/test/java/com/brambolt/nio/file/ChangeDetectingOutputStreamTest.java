@@ -0,0 +1,80 @@
+package com.brambolt.nio.file;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ChangeDetectingOutputStreamTest {
+
+    private static final String CONTENT = "Some existing content...";
+
+    private static Path write(String content) throws IOException {
+        Path path = java.nio.file.Files.createTempFile("change-detecting", ".txt");
+        java.nio.file.Files.write(path, content.getBytes(UTF_8));
+        return path;
+    }
+
+    private static String read(Path path) throws IOException {
+        return new String(java.nio.file.Files.readAllBytes(path), UTF_8);
+    }
+
+    @Test
+    public void testCommit() throws IOException {
+        Path path = write(CONTENT);
+        try {
+            FileTime modified = FileTime.fromMillis(1000000000000L);
+            java.nio.file.Files.setLastModifiedTime(path, modified);
+            ChangeDetectingOutputStream unchanged = new ChangeDetectingOutputStream(path);
+            unchanged.write(CONTENT.getBytes(UTF_8));
+            unchanged.commit();
+            assertFalse(unchanged.isChanged());
+            assertEquals(modified, java.nio.file.Files.getLastModifiedTime(path));
+            // A prefix of the content, so the file is truncated:
+            ChangeDetectingOutputStream shorter = new ChangeDetectingOutputStream(path);
+            shorter.write(CONTENT.substring(0, 4).getBytes(UTF_8));
+            shorter.commit();
+            assertTrue(shorter.isChanged());
+            assertEquals(CONTENT.substring(0, 4), read(path));
+            assertThrows(IOException.class, shorter::commit);
+        } finally {
+            java.nio.file.Files.delete(path);
+        }
+    }
+
+    @Test
+    public void testFailure() throws IOException {
+        Path path = write(CONTENT);
+        try {
+            // The renderer fails after producing a matching prefix:
+            assertThrows(IllegalStateException.class, () -> {
+                try (Writer writer = new ChannelWriter(new ChangeDetectingOutputStream(path), UTF_8)) {
+                    writer.write(CONTENT.substring(0, 10));
+                    writer.flush();
+                    throw new IllegalStateException("Rendering failed");
+                }
+            });
+            assertEquals(CONTENT, read(path));
+        } finally {
+            java.nio.file.Files.delete(path);
+        }
+    }
+
+    @Test
+    public void testFailureCreated() throws IOException {
+        Path path = write(CONTENT);
+        java.nio.file.Files.delete(path);
+        ChangeDetectingOutputStream os = new ChangeDetectingOutputStream(path);
+        os.write(CONTENT.getBytes(UTF_8));
+        os.close(); // Without committing
+        assertFalse(java.nio.file.Files.exists(path));
+    }
+}
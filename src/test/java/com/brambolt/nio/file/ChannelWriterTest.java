@@ -0,0 +1,119 @@
+package com.brambolt.nio.file;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CharsetEncoder;
+import java.nio.file.Path;
+
+import static java.nio.charset.StandardCharsets.ISO_8859_1;
+import static java.nio.charset.StandardCharsets.UTF_16;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class ChannelWriterTest {
+
+    /**
+     * Characters outside ASCII, a surrogate pair and an unpaired surrogate.
+     */
+    private static final String TEXT = "caf\u00e9 \ud83d\ude00 \ud800 ";
+
+    @Test
+    public void testWrite() throws IOException {
+        for (Charset charset : new Charset[] { UTF_8, UTF_16, ISO_8859_1 })
+            assertArrayEquals(expected(charset), actual(charset));
+    }
+
+    private static byte[] expected(Charset charset) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (Writer writer = new OutputStreamWriter(bytes, charset)) {
+            write(writer);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static byte[] actual(Charset charset) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (Writer writer = new ChannelWriter(Channels.newChannel(bytes), charset)) {
+            write(writer);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static void write(Writer writer) throws IOException {
+        StringBuilder large = new StringBuilder();
+        for (int i = 0; i < 10000; ++i)
+            large.append(TEXT);
+        writer.write(TEXT);
+        // A surrogate pair split across writes:
+        writer.write(TEXT, 0, 6);
+        writer.write(TEXT.toCharArray(), 6, TEXT.length() - 6);
+        writer.write(large.toString());
+        writer.write(large.toString().toCharArray());
+        writer.append(large, 0, large.length());
+        for (char c : TEXT.toCharArray())
+            writer.write(c);
+    }
+
+    @Test
+    public void testOpen() throws IOException {
+        Path path = java.nio.file.Files.createTempFile("channel-writer", ".txt");
+        try {
+            java.nio.file.Files.write(path, "longer existing content".getBytes(UTF_8));
+            try (Writer writer = ChannelWriter.open(path, UTF_8)) {
+                writer.write(TEXT);
+            }
+            assertEquals(TEXT.replace('\ud800', '?'), new String(java.nio.file.Files.readAllBytes(path), UTF_8));
+        } finally {
+            java.nio.file.Files.delete(path);
+        }
+    }
+
+    @Test
+    public void testOpenDecodeOnly() throws IOException {
+        Path path = java.nio.file.Files.createTempFile("channel-writer", ".txt");
+        try {
+            assertThrows(UnsupportedOperationException.class, () -> ChannelWriter.open(path, new DecodeOnly()));
+        } finally {
+            java.nio.file.Files.delete(path);
+        }
+    }
+
+    /**
+     * A charset that can only decode, like some of the legacy JDK charsets.
+     */
+    private static class DecodeOnly extends Charset {
+
+        DecodeOnly() {
+            super("x-decode-only", null);
+        }
+
+        @Override
+        public boolean contains(Charset cs) {
+            return false;
+        }
+
+        @Override
+        public CharsetDecoder newDecoder() {
+            return UTF_8.newDecoder();
+        }
+
+        @Override
+        public CharsetEncoder newEncoder() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public boolean canEncode() {
+            return false;
+        }
+    }
+}
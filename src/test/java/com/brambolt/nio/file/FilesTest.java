@@ -0,0 +1,87 @@
+package com.brambolt.nio.file;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static java.nio.charset.StandardCharsets.ISO_8859_1;
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static java.nio.charset.StandardCharsets.UTF_16;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class FilesTest {
+
+    private static final String TEXT = "First line\nSecond line, caf\u00e9 \ud83d\ude00\r\nThird line\rLast line";
+
+    private static Path write(String content, Charset charset) throws IOException {
+        Path path = java.nio.file.Files.createTempFile("files", ".txt");
+        java.nio.file.Files.write(path, content.getBytes(charset));
+        return path;
+    }
+
+    @Test
+    public void testReadString() throws IOException {
+        for (Charset charset : new Charset[] { UTF_8, UTF_16, ISO_8859_1 }) {
+            String expected = new String(TEXT.getBytes(charset), charset);
+            Path path = write(TEXT, charset);
+            try {
+                // Read onto the heap, and through a mapping:
+                assertEquals(expected, Files.readString(path, charset));
+                assertEquals(expected, Files.readString(path, charset, Long.MAX_VALUE));
+                assertEquals(expected, Files.readString(path, charset, 0L));
+            } finally {
+                java.nio.file.Files.delete(path);
+            }
+        }
+    }
+
+    @Test
+    public void testReadStringLarge() throws IOException {
+        // Larger than the decoding buffer, so characters span its boundaries:
+        StringBuilder builder = new StringBuilder();
+        while (builder.length() < 100000)
+            builder.append(TEXT);
+        String expected = builder.toString();
+        Path path = write(expected, UTF_8);
+        try {
+            assertEquals(expected, Files.readString(path, UTF_8, 0L));
+        } finally {
+            java.nio.file.Files.delete(path);
+        }
+    }
+
+    @Test
+    public void testReadCharSequence() throws IOException {
+        for (Charset charset : new Charset[] { UTF_8, ISO_8859_1, US_ASCII }) {
+            String expected = new String(TEXT.getBytes(charset), charset);
+            Path path = write(TEXT, charset);
+            try {
+                CharSequence chars = Files.readCharSequence(path, charset);
+                assertEquals(expected.length(), chars.length());
+                assertEquals(expected, chars.toString());
+                assertEquals(expected.substring(6, 20), chars.subSequence(6, 20).toString());
+                assertEquals(expected.charAt(30), chars.charAt(30));
+            } finally {
+                java.nio.file.Files.delete(path);
+            }
+        }
+    }
+
+    @Test
+    public void testLines() throws IOException {
+        List<String> expected = Arrays.asList("First line", "Second line, caf\u00e9 \ud83d\ude00", "Third line", "Last line");
+        Path path = write(TEXT, UTF_8);
+        try (Stream<String> lines = Files.lines(path, UTF_8)) {
+            assertEquals(expected, lines.collect(Collectors.toList()));
+        } finally {
+            java.nio.file.Files.delete(path);
+        }
+    }
+}
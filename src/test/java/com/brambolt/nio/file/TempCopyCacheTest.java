@@ -0,0 +1,154 @@
+package com.brambolt.nio.file;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.nio.file.attribute.PosixFilePermission;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TempCopyCacheTest {
+
+    private static Path write(Path path, String content, long modified) throws IOException {
+        java.nio.file.Files.write(path, content.getBytes(UTF_8));
+        java.nio.file.Files.setLastModifiedTime(path, FileTime.fromMillis(modified));
+        return path;
+    }
+
+    private static Path createSource() throws IOException {
+        return write(java.nio.file.Files.createTempFile("temp-copy-cache", ".txt"), "content", 1000L);
+    }
+
+    private static String read(Path path) throws IOException {
+        return new String(java.nio.file.Files.readAllBytes(path), UTF_8);
+    }
+
+    @Test
+    public void testHit() throws IOException {
+        TempCopyCache cache = new TempCopyCache();
+        Path source = createSource();
+        try {
+            Path copy = cache.copy(source);
+            assertEquals("content", read(copy));
+            assertEquals(copy, cache.copy(source));
+            assertEquals(1L, cache.getHitCount());
+            assertEquals(1L, cache.getMissCount());
+        } finally {
+            cache.clear();
+            java.nio.file.Files.delete(source);
+        }
+    }
+
+    @Test
+    public void testMissAfterChange() throws IOException {
+        TempCopyCache cache = new TempCopyCache();
+        Path source = createSource();
+        try {
+            Path copy = cache.copy(source);
+            // The same size, so only the digest tells the content apart:
+            write(source, "CONTENT", 2000L);
+            Path changed = cache.copy(source);
+            assertNotEquals(copy, changed);
+            assertEquals("CONTENT", read(changed));
+            assertEquals(0L, cache.getHitCount());
+            assertEquals(2L, cache.getMissCount());
+            java.nio.file.Files.delete(copy);
+        } finally {
+            cache.clear();
+            java.nio.file.Files.delete(source);
+        }
+    }
+
+    @Test
+    public void testStaleCopy() throws IOException {
+        TempCopyCache cache = new TempCopyCache();
+        Path source = createSource();
+        try {
+            Path copy = cache.copy(source);
+            // A caller that modifies a copy without taking it over:
+            copy.toFile().setWritable(true);
+            write(copy, "changed", 3000L);
+            Path fresh = cache.copy(source);
+            assertNotEquals(copy, fresh);
+            assertEquals("content", read(fresh));
+            java.nio.file.Files.delete(copy);
+            java.nio.file.Files.delete(fresh);
+            Path recreated = cache.copy(source);
+            assertEquals("content", read(recreated));
+            assertEquals(0L, cache.getHitCount());
+            assertEquals(3L, cache.getMissCount());
+        } finally {
+            cache.clear();
+            java.nio.file.Files.delete(source);
+        }
+    }
+
+    @Test
+    public void testEviction() throws IOException {
+        TempCopyCache cache = new TempCopyCache(true, 2);
+        Path[] sources = new Path[3];
+        try {
+            Path[] copies = new Path[sources.length];
+            for (int i = 0; i < sources.length; ++i) {
+                sources[i] = write(java.nio.file.Files.createTempFile("temp-copy-cache", ".txt"), "content " + i, 1000L);
+                copies[i] = cache.copy(sources[i]);
+            }
+            assertEquals(2, cache.size());
+            // The least recently used copy is deleted:
+            assertFalse(java.nio.file.Files.exists(copies[0]));
+            assertEquals("content 1", read(copies[1]));
+            assertEquals("content 2", read(copies[2]));
+        } finally {
+            cache.clear();
+            for (Path source : sources)
+                if (null != source)
+                    java.nio.file.Files.delete(source);
+        }
+    }
+
+    @Test
+    public void testRemove() throws IOException {
+        TempCopyCache cache = new TempCopyCache();
+        Path source = createSource();
+        try {
+            Path copy = cache.copy(source);
+            if (java.nio.file.Files.getFileStore(copy).supportsFileAttributeView("posix"))
+                assertFalse(java.nio.file.Files.getPosixFilePermissions(copy).contains(PosixFilePermission.OWNER_WRITE));
+            assertTrue(cache.remove(copy));
+            assertFalse(cache.remove(copy));
+            // The caller owns the copy now:
+            write(copy, "changed", 3000L);
+            cache.clear();
+            assertEquals("changed", read(copy));
+            assertNotEquals(copy, cache.copy(source));
+            java.nio.file.Files.delete(copy);
+        } finally {
+            cache.clear();
+            java.nio.file.Files.delete(source);
+        }
+    }
+
+    @Test
+    public void testCreateTempCopy() throws IOException {
+        Path source = createSource();
+        try {
+            for (boolean transfer : new boolean[] { false, true }) {
+                Path copy = Files.createTempCopy(source, transfer);
+                try {
+                    assertNotEquals(source, copy);
+                    assertEquals("content", read(copy));
+                } finally {
+                    java.nio.file.Files.delete(copy);
+                }
+            }
+        } finally {
+            java.nio.file.Files.delete(source);
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package com.brambolt.nio.file;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.FileSystem;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ZipFileSystemPoolTest {
+
+    private static Path createZip() throws IOException {
+        return writeZip(java.nio.file.Files.createTempFile("zip-file-system-pool", ".zip"), "Some text...");
+    }
+
+    private static Path writeZip(Path path, String content) throws IOException {
+        try (OutputStream os = java.nio.file.Files.newOutputStream(path);
+             ZipOutputStream zos = new ZipOutputStream(os)) {
+            zos.putNextEntry(new ZipEntry("a.txt"));
+            zos.write(content.getBytes(UTF_8));
+            zos.closeEntry();
+        }
+        return path;
+    }
+
+    @Test
+    public void testReferenceCounting() throws IOException {
+        Path zip = createZip();
+        try (ZipFileSystemPool pool = new ZipFileSystemPool()) {
+            ZipFileSystemPool.Lease first = pool.lease(zip);
+            ZipFileSystemPool.Lease second = pool.lease(zip);
+            FileSystem fs = first.getFileSystem();
+            assertSame(fs, second.getFileSystem());
+            assertEquals(1, pool.size());
+            assertTrue(java.nio.file.Files.exists(fs.getPath("a.txt")));
+            // Invalidated while leased, so only closed with the last lease:
+            pool.invalidate(zip);
+            assertEquals(0, pool.size());
+            first.close();
+            first.close(); // Closing twice only releases once
+            assertTrue(fs.isOpen());
+            second.close();
+            assertFalse(fs.isOpen());
+        } finally {
+            java.nio.file.Files.delete(zip);
+        }
+    }
+
+    @Test
+    public void testIdleEviction() throws IOException, InterruptedException {
+        Path zip = createZip();
+        Path other = createZip();
+        try (ZipFileSystemPool pool = new ZipFileSystemPool(10L)) {
+            ZipFileSystemPool.Lease idle = pool.lease(zip);
+            FileSystem fs = idle.getFileSystem();
+            idle.close();
+            ZipFileSystemPool.Lease leased = pool.lease(other);
+            Thread.sleep(50L);
+            pool.closeIdle();
+            assertFalse(fs.isOpen());
+            assertEquals(1, pool.size());
+            assertTrue(leased.getFileSystem().isOpen());
+            leased.close();
+        } finally {
+            java.nio.file.Files.delete(zip);
+            java.nio.file.Files.delete(other);
+        }
+    }
+
+    @Test
+    public void testInvalidationOnChange() throws IOException {
+        Path zip = createZip();
+        try (ZipFileSystemPool pool = new ZipFileSystemPool()) {
+            FileSystem fs;
+            try (ZipFileSystemPool.Lease lease = pool.lease(zip)) {
+                fs = lease.getFileSystem();
+            }
+            try (ZipFileSystemPool.Lease lease = pool.lease(zip)) {
+                assertSame(fs, lease.getFileSystem());
+            }
+            // A new modification time:
+            java.nio.file.Files.setLastModifiedTime(zip, FileTime.fromMillis(1000000000000L));
+            FileSystem modified;
+            try (ZipFileSystemPool.Lease lease = pool.lease(zip)) {
+                modified = lease.getFileSystem();
+                assertNotSame(fs, modified);
+                assertFalse(fs.isOpen());
+            }
+            // A new size, with the same modification time:
+            writeZip(zip, "Some more text...");
+            java.nio.file.Files.setLastModifiedTime(zip, FileTime.fromMillis(1000000000000L));
+            try (ZipFileSystemPool.Lease lease = pool.lease(zip)) {
+                assertNotSame(modified, lease.getFileSystem());
+                assertFalse(modified.isOpen());
+            }
+        } finally {
+            java.nio.file.Files.delete(zip);
+        }
+    }
+
+    @Test
+    public void testConcurrentLeases() throws Exception {
+        Path zip = createZip();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try (ZipFileSystemPool pool = new ZipFileSystemPool()) {
+            List<Future<ZipFileSystemPool.Lease>> futures = new ArrayList<>();
+            for (int i = 0; i < 16; ++i)
+                futures.add(executor.submit(() -> pool.lease(zip)));
+            List<ZipFileSystemPool.Lease> leases = new ArrayList<>();
+            for (Future<ZipFileSystemPool.Lease> future : futures)
+                leases.add(future.get());
+            FileSystem fs = leases.get(0).getFileSystem();
+            for (ZipFileSystemPool.Lease lease : leases)
+                assertSame(fs, lease.getFileSystem());
+            assertEquals(1, pool.size());
+            for (ZipFileSystemPool.Lease lease : leases)
+                lease.close();
+            assertTrue(fs.isOpen());
+        } finally {
+            executor.shutdown();
+            java.nio.file.Files.delete(zip);
+        }
+    }
+}
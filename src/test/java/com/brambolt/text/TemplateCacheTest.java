@@ -0,0 +1,71 @@
+package com.brambolt.text;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TemplateCacheTest {
+
+    public static final String TEXT_RESOURCE_PATH = "com/brambolt/util/text-resource.txt";
+
+    private final ClassLoader loader = TemplateCacheTest.class.getClassLoader();
+
+    @Test
+    public void testGet() throws IOException {
+        TemplateCache cache = new TemplateCache();
+        CompiledTemplate compiled = cache.get(loader, TEXT_RESOURCE_PATH, UTF_8, "@");
+        assertNotNull(compiled);
+        assertTrue(compiled.getTemplate().contains("Some text to scan..."));
+        assertSame(compiled, cache.get(loader, TEXT_RESOURCE_PATH, UTF_8, "@"));
+        assertEquals(1L, cache.getHitCount());
+        assertEquals(1L, cache.getMissCount());
+    }
+
+    @Test
+    public void testGetNotFound() throws IOException {
+        AtomicInteger opened = new AtomicInteger();
+        TemplateCache cache = new TemplateCache(4, TemplateCache.DEFAULT_MAXIMUM_RESOURCE_SIZE, (cl, path) -> {
+            opened.incrementAndGet();
+            return cl.getResourceAsStream(path);
+        });
+        assertNull(cache.get(loader, "bad path", UTF_8, "@"));
+        // The missing resource is recorded, so it is not looked up again:
+        assertNull(cache.get(loader, "bad path", UTF_8, "@"));
+        assertEquals(1, opened.get());
+        assertEquals(1L, cache.getHitCount());
+    }
+
+    @Test
+    public void testGetTooLarge() throws IOException {
+        TemplateCache cache = new TemplateCache(1, 1L);
+        assertNull(cache.get(loader, TEXT_RESOURCE_PATH, UTF_8, "@"));
+        assertNull(cache.get(loader, TEXT_RESOURCE_PATH, UTF_8, "@"));
+        assertEquals(1L, cache.getHitCount());
+    }
+
+    @Test
+    public void testOpener() throws IOException {
+        TemplateCache cache = new TemplateCache(4, TemplateCache.DEFAULT_MAXIMUM_RESOURCE_SIZE,
+            (cl, path) -> new ByteArrayInputStream("Hello @name@".getBytes(UTF_8)));
+        assertEquals("Hello 17", cache.get(loader, "any path", UTF_8, "@").render(Collections.singletonMap("name", 17)));
+    }
+
+    @Test
+    public void testEviction() throws IOException {
+        TemplateCache cache = new TemplateCache(1);
+        cache.get(loader, TEXT_RESOURCE_PATH, UTF_8, "@");
+        cache.get(loader, TEXT_RESOURCE_PATH, UTF_8, "%");
+        assertEquals(1, cache.size());
+        assertEquals(1L, cache.getEvictionCount());
+    }
+}
@@ -0,0 +1,88 @@
+package com.brambolt.text;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Map;
+
+import static com.brambolt.text.Templates.bind;
+import static com.brambolt.text.Templates.compile;
+import static com.brambolt.text.Templates.render;
+import static com.brambolt.util.Maps.asMap;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class TemplatesTest {
+
+    @Test
+    public void testBind() {
+        Map<String, Object> bindings = asMap("variable", "value", "n", 1);
+        assertEquals("Some text with a value and 1.", bind("Some text with a @variable@ and @n@.", bindings));
+    }
+
+    @Test
+    public void testBindWithoutBindings() {
+        assertEquals("Some @variable@", bind("Some @variable@", null));
+    }
+
+    @Test
+    public void testBindLeavesUnboundVariables() {
+        Map<String, Object> bindings = asMap("b", "B");
+        assertEquals("a@b.com @x@ B", bind("a@b.com @x@ @b@", bindings));
+    }
+
+    @Test
+    public void testBindQuotesReplacement() {
+        Map<String, Object> bindings = asMap("v", "$1\\");
+        assertEquals("[$1\\]", bind("[@v@]", bindings));
+    }
+
+    @Test
+    public void testBindWithNullValue() {
+        Map<String, Object> bindings = asMap("v", null);
+        assertThrows(IllegalStateException.class, () -> bind("@v@", bindings));
+    }
+
+    @Test
+    public void testPrepare() throws IOException {
+        Map<String, Object> bindings = new java.util.HashMap<>();
+        for (int i = 0; i < 5000; ++i)
+            bindings.put("key" + i, i);
+        TemplateBindings prepared = Templates.prepare(bindings);
+        assertEquals(5000, prepared.size());
+        String template = "@key1@ %%key4999%% @missing@ %%key42%%";
+        assertEquals(bind(template, bindings), prepared.bind(template));
+        assertEquals(bind(template, bindings, "%%"), prepared.bind(template, "%%"));
+        assertEquals("1 %%key4999%% @missing@ %%key42%%", prepared.render(compile(template)));
+        StringBuilder out = new StringBuilder();
+        prepared.render(new StringReader(template), "%%", out);
+        assertEquals("@key1@ 4999 @missing@ 42", out.toString());
+        assertEquals(template, Templates.prepare(null).bind(template));
+    }
+
+    @Test
+    public void testCompile() {
+        CompiledTemplate compiled = compile("%%a%% and %%b%%%%a%%", "%%");
+        assertEquals("1 and 21", compiled.render(asMap("a", 1, "b", 2)));
+        assertEquals("x and %%b%%x", compiled.render(asMap("a", "x")));
+    }
+
+    @Test
+    public void testRender() throws IOException {
+        StringBuilder out = new StringBuilder();
+        render(new StringReader("Some text with a @variable@ and @x@."), asMap("variable", "value"), out);
+        assertEquals("Some text with a value and @x@.", out.toString());
+    }
+
+    @Test
+    public void testRenderAcrossBufferBoundaries() throws IOException {
+        StringBuilder template = new StringBuilder();
+        for (int i = 0; i < 10000; ++i)
+            template.append("%%a%% %%b");
+        Map<String, Object> bindings = asMap("a", "1");
+        StringBuilder out = new StringBuilder();
+        render(new StringReader(template.toString()), bindings, "%%", out);
+        assertEquals(compile(template.toString(), "%%").render(bindings), out.toString());
+    }
+}
@@ -0,0 +1,192 @@
+package com.brambolt.util;
+
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static java.util.Arrays.asList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ContextAppenderTest {
+
+    /**
+     * Records the messages logged through a logger proxy. The first message
+     * can be held back, to keep the appender thread busy while the queue
+     * fills up.
+     */
+    private static class Recorder {
+
+        final List<String> messages = Collections.synchronizedList(new ArrayList<>());
+
+        final List<Long> forwardedCounts = Collections.synchronizedList(new ArrayList<>());
+
+        final CountDownLatch entered = new CountDownLatch(1);
+
+        final CountDownLatch released = new CountDownLatch(1);
+
+        final boolean debugEnabled;
+
+        ContextAppender appender;
+
+        Recorder(boolean debugEnabled, boolean hold) {
+            this.debugEnabled = debugEnabled;
+            if (!hold)
+                released.countDown();
+        }
+
+        Logger logger() {
+            return (Logger) Proxy.newProxyInstance(Logger.class.getClassLoader(), new Class<?>[] { Logger.class },
+                (proxy, method, args) -> {
+                    String name = method.getName();
+                    if ("isDebugEnabled".equals(name))
+                        return debugEnabled;
+                    if (name.startsWith("is"))
+                        return true;
+                    if ("getName".equals(name))
+                        return "recorder";
+                    entered.countDown();
+                    released.await();
+                    forwardedCounts.add(appender.getForwardedCount());
+                    messages.add((String) args[0]);
+                    return null;
+                });
+        }
+
+        void awaitMessages(int count) throws InterruptedException {
+            for (int i = 0; i < 500 && messages.size() < count; ++i)
+                Thread.sleep(10L);
+            assertEquals(count, messages.size());
+        }
+    }
+
+    private static Context.Entry info(String message, Object... params) {
+        return new Context.Entry(Context.Type.INFO, ContextAppenderTest.class, message, params);
+    }
+
+    @Test
+    public void testBatching() throws InterruptedException {
+        Recorder recorder = new Recorder(true, true);
+        try (ContextAppender appender = new ContextAppender(16, 4, ContextAppender.DropPolicy.DROP_NEWEST)) {
+            recorder.appender = appender;
+            Logger logger = recorder.logger();
+            appender.append(logger, info("0"));
+            assertTrue(recorder.entered.await(5, TimeUnit.SECONDS));
+            for (int i = 1; i < 11; ++i)
+                assertTrue(appender.append(logger, info(Integer.toString(i))));
+            recorder.released.countDown();
+            recorder.awaitMessages(11);
+            // The forwarded count only moves between batches of at most four:
+            assertEquals(asList(0L, 1L, 1L, 1L, 1L, 5L, 5L, 5L, 5L, 9L, 9L), recorder.forwardedCounts);
+        }
+    }
+
+    private static List<String> fill(ContextAppender.DropPolicy dropPolicy) throws InterruptedException {
+        Recorder recorder = new Recorder(true, true);
+        try (ContextAppender appender = new ContextAppender(2, 8, dropPolicy)) {
+            recorder.appender = appender;
+            Logger logger = recorder.logger();
+            appender.append(logger, info("0"));
+            assertTrue(recorder.entered.await(5, TimeUnit.SECONDS));
+            assertTrue(appender.append(logger, info("1")));
+            assertTrue(appender.append(logger, info("2")));
+            boolean appended = appender.append(logger, info("3"));
+            assertEquals(ContextAppender.DropPolicy.DROP_OLDEST == dropPolicy, appended);
+            assertEquals(1L, appender.getDroppedCount());
+            recorder.released.countDown();
+            recorder.awaitMessages(3);
+            return new ArrayList<>(recorder.messages);
+        }
+    }
+
+    @Test
+    public void testDropNewest() throws InterruptedException {
+        assertEquals(asList("0", "1", "2"), fill(ContextAppender.DropPolicy.DROP_NEWEST));
+    }
+
+    @Test
+    public void testDropOldest() throws InterruptedException {
+        assertEquals(asList("0", "2", "3"), fill(ContextAppender.DropPolicy.DROP_OLDEST));
+    }
+
+    @Test
+    public void testDisabledLevelIsNotFormatted() throws InterruptedException {
+        AtomicInteger formatted = new AtomicInteger();
+        Object param = new Object() {
+            @Override
+            public String toString() {
+                formatted.incrementAndGet();
+                return "param";
+            }
+        };
+        Recorder recorder = new Recorder(false, false);
+        try (ContextAppender appender = new ContextAppender()) {
+            recorder.appender = appender;
+            Logger logger = recorder.logger();
+            appender.append(logger, new Context.Entry(Context.Type.DEBUG, ContextAppenderTest.class, "Debug {}", param));
+            appender.append(logger, info("Info"));
+            recorder.awaitMessages(1);
+            assertEquals(asList("Info"), recorder.messages);
+            assertEquals(2L, appender.getForwardedCount());
+            assertEquals(0, formatted.get());
+        }
+    }
+
+    @Test
+    public void testCloseDrains() {
+        Recorder recorder = new Recorder(true, false);
+        ContextAppender appender = new ContextAppender();
+        recorder.appender = appender;
+        Logger logger = recorder.logger();
+        for (int i = 0; i < 1000; ++i)
+            assertTrue(appender.append(logger, info(Integer.toString(i))));
+        appender.close();
+        assertEquals(1000, recorder.messages.size());
+        assertEquals(1000L, appender.getForwardedCount());
+        assertFalse(appender.append(logger, info("Closed")));
+        assertEquals(1L, appender.getDroppedCount());
+    }
+
+    @Test
+    public void testFailingLogger() {
+        Recorder recorder = new Recorder(true, false);
+        Logger logger = recorder.logger();
+        Logger failing = (Logger) Proxy.newProxyInstance(Logger.class.getClassLoader(), new Class<?>[] { Logger.class },
+            (proxy, method, args) -> {
+                if (method.getName().startsWith("is"))
+                    return true;
+                throw new IllegalStateException("Logger failed");
+            });
+        ContextAppender appender = new ContextAppender(16, 8, ContextAppender.DropPolicy.DROP_NEWEST);
+        recorder.appender = appender;
+        assertTrue(appender.append(logger, info("0")));
+        assertTrue(appender.append(failing, info("1")));
+        assertTrue(appender.append(logger, info("2")));
+        appender.close();
+        // The entries after the failing one are still logged:
+        assertEquals(asList("0", "2"), recorder.messages);
+        assertEquals(2L, appender.getForwardedCount());
+        assertEquals(1L, appender.getDroppedCount());
+    }
+
+    @Test
+    public void testContextForwardsOnlyWithAppender() throws InterruptedException {
+        Recorder recorder = new Recorder(true, false);
+        Logger logger = recorder.logger();
+        Context.create(ContextAppenderTest.class, logger).info(ContextAppenderTest.class, "Stored");
+        try (ContextAppender appender = new ContextAppender()) {
+            recorder.appender = appender;
+            Context.create(ContextAppenderTest.class, logger, appender).info(ContextAppenderTest.class, "Forwarded");
+            recorder.awaitMessages(1);
+            assertEquals(asList("Forwarded"), recorder.messages);
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.brambolt.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static java.util.Arrays.asList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ContextTest {
+
+    private static List<String> messages(Context context) {
+        return context.getEntries().stream().map(entry -> entry.message).collect(Collectors.toList());
+    }
+
+    @Test
+    public void testIsClean() {
+        Context context = Context.create(ContextTest.class);
+        context.info(ContextTest.class, "Info");
+        assertTrue(context.isClean());
+        context.error(ContextTest.class, "Error");
+        assertFalse(context.isClean());
+        context.info(ContextTest.class, "Info");
+        assertFalse(context.isClean());
+    }
+
+    @Test
+    public void testIsCleanAfterDrop() {
+        Context context = Context.create(ContextTest.class, null, 1);
+        context.fatal(ContextTest.class, "Fatal");
+        context.info(ContextTest.class, "Info");
+        assertEquals(asList("Info"), messages(context));
+        assertFalse(context.isClean());
+    }
+
+    @Test
+    public void testBoundedSnapshot() {
+        Context context = Context.create(ContextTest.class, null, 3);
+        for (int i = 0; i < 5; ++i)
+            context.info(ContextTest.class, Integer.toString(i));
+        assertEquals(asList("2", "3", "4"), messages(context));
+        assertEquals(2L, context.getDroppedCount());
+        context.info(ContextTest.class, "5");
+        assertEquals(asList("3", "4", "5"), messages(context));
+        assertEquals(3L, context.getDroppedCount());
+    }
+
+    @Test
+    public void testUnboundedDroppedCount() {
+        Context context = Context.create(ContextTest.class);
+        for (int i = 0; i < 100; ++i)
+            context.info(ContextTest.class, Integer.toString(i));
+        assertEquals(100, context.getEntries().size());
+        assertEquals(0L, context.getDroppedCount());
+    }
+
+    @Test
+    public void testConcurrentAppends() throws InterruptedException {
+        int threads = 4;
+        int perThread = 10000;
+        Context unbounded = Context.create(ContextTest.class);
+        Context bounded = Context.create(ContextTest.class, null, 100);
+        List<Thread> started = new ArrayList<>();
+        for (int t = 0; t < threads; ++t) {
+            String name = Integer.toString(t);
+            Thread thread = new Thread(() -> {
+                for (int i = 0; i < perThread; ++i) {
+                    unbounded.info(ContextTest.class, name);
+                    bounded.info(ContextTest.class, name);
+                }
+            });
+            thread.start();
+            started.add(thread);
+        }
+        for (Thread thread : started)
+            thread.join();
+        assertEquals(threads * perThread, unbounded.getEntries().size());
+        assertEquals(100, bounded.getEntries().size());
+        assertEquals(threads * perThread - 100L, bounded.getDroppedCount());
+        for (int t = 0; t < threads; ++t) {
+            String name = Integer.toString(t);
+            assertEquals(perThread, messages(unbounded).stream().filter(name::equals).count());
+        }
+        assertTrue(unbounded.isClean());
+    }
+}
@@ -0,0 +1,98 @@
+package com.brambolt.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class IndexedConfigTest {
+
+    private static Properties properties() {
+        Properties properties = new Properties();
+        properties.setProperty("a.b.c", "abc");
+        properties.setProperty("a.b.d", "abd");
+        properties.setProperty("a.e", "ae");
+        properties.setProperty("f", "f");
+        return properties;
+    }
+
+    @Test
+    public void testGet() {
+        IndexedConfig config = IndexedConfig.of(properties());
+        assertEquals("abc", config.get("a.b.c"));
+        assertEquals("ae", config.get(" a.e "));
+        assertEquals("f", config.get("f"));
+        assertTrue(config.contains("a.b"));
+        assertFalse(config.contains("a.x"));
+        assertEquals("default", config.get("a.x", "default"));
+        assertEquals(
+            new HashMap<>(Maps.asMap("c", "abc", "d", "abd")),
+            new HashMap<>((Map<?, ?>) config.get("a.b")));
+    }
+
+    @Test
+    public void testParityWithSegmentedGet() {
+        Map<String, Object> nested = Maps.convert(properties());
+        IndexedConfig config = IndexedConfig.of(nested);
+        for (String path : config.getPaths())
+            assertEquals(Maps.segmentedGet(nested, path), config.get(path));
+        for (String path : Arrays.asList("a.b.x", "x", "a.e.x")) {
+            assertThrows(RuntimeException.class, () -> Maps.segmentedGet(nested, path));
+            assertThrows(NoSuchElementException.class, () -> config.get(path));
+        }
+    }
+
+    @Test
+    public void testKey() {
+        IndexedConfig config = IndexedConfig.of(properties());
+        IndexedConfig.Key key = IndexedConfig.Key.of(" a.b.c ");
+        assertEquals("a.b.c", key.getPath());
+        assertEquals(Arrays.asList("a", "b", "c"), key.getSegments());
+        assertTrue(config.contains(key));
+        // The same handle is reused for repeated lookups:
+        for (int i = 0; i < 3; ++i)
+            assertSame("abc", config.get(key));
+        assertFalse(IndexedConfig.of(new HashMap<>()).contains(key));
+    }
+
+    @Test
+    public void testSubtree() {
+        IndexedConfig config = IndexedConfig.of(properties());
+        IndexedConfig a = config.subtree("a");
+        assertEquals("abc", a.get("b.c"));
+        assertEquals("ae", a.get("e"));
+        assertFalse(a.contains("f"));
+        assertEquals(new HashSet<>(Arrays.asList("b", "b.c", "b.d", "e")), a.getPaths());
+        IndexedConfig b = a.subtree("b");
+        assertEquals("abd", b.get("d"));
+        assertThrows(NoSuchElementException.class, () -> config.subtree("f"));
+    }
+
+    @Test
+    public void testGetLeaves() {
+        IndexedConfig config = IndexedConfig.of(properties());
+        assertEquals(Maps.asMap("a.b.c", "abc", "a.b.d", "abd", "a.e", "ae"), config.getLeaves("a"));
+        // On a subtree view, paths are relative to the subtree:
+        assertEquals(Maps.asMap("b.c", "abc", "b.d", "abd"), config.subtree("a").getLeaves("b"));
+        assertTrue(config.getLeaves("x").isEmpty());
+    }
+
+    @Test
+    public void testNotFoundMessage() {
+        IndexedConfig config = IndexedConfig.of(properties());
+        NoSuchElementException x = assertThrows(NoSuchElementException.class, () -> config.get("a.b.x"));
+        assertEquals("Not found: a.b.x", x.getMessage());
+        x = assertThrows(NoSuchElementException.class, () -> config.subtree("a.e"));
+        assertEquals("Not a subtree: a.e", x.getMessage());
+    }
+}
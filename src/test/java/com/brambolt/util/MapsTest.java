@@ -4,9 +4,12 @@ import org.junit.jupiter.api.Test;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Properties;
 
 import static com.brambolt.util.Maps.merge;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class MapsTest {
@@ -39,6 +42,67 @@ public class MapsTest {
         assertContains(merged, right);
     }
 
+    @Test
+    public void testPersistentMerge() {
+        Map<String, Object> left = createLeft();
+        Map<String, Object> right = createRight();
+        PersistentMap<String, Object> existing = Maps.persistent(left);
+        PersistentMap<String, Object> merged = merge(existing, right);
+        assertEquals(merge(left, right), merged);
+        // The existing map is unchanged:
+        assertEquals(left, existing);
+        // Untouched nested maps are shared:
+        Map<String, Object> e = new HashMap<>();
+        e.put("ea", 1);
+        Map<String, Object> overwrites = new HashMap<>();
+        overwrites.put("e", e);
+        assertSame(merged.get("c"), merge(merged, overwrites).get("c"));
+    }
+
+    @Test
+    public void testPersistentMergeRejectsInvalidOverwrite() {
+        Map<String, Object> overwrites = new HashMap<>();
+        overwrites.put("c", 1);
+        assertThrows(IllegalStateException.class, () -> merge(Maps.persistent(createLeft()), overwrites));
+    }
+
+    @Test
+    public void testConvert() {
+        Properties properties = new Properties();
+        properties.setProperty("a.b.c", "1");
+        properties.setProperty("a.b.d", "2");
+        properties.setProperty("a.e", "3");
+        properties.setProperty("f", "4");
+        Map<String, Object> expected = Maps.asMap(
+            "a", Maps.asMap("b", Maps.asMap("c", "1", "d", "2"), "e", "3"),
+            "f", "4");
+        assertEquals(expected, Maps.convert(properties));
+        assertEquals(Maps.asMap("x", Maps.asMap("y", new HashMap<>())),
+            Maps.convert(properties, java.util.Collections.singletonList("x.y.z")));
+    }
+
+    @Test
+    public void testConvertRejectsConflicts() {
+        Properties properties = new Properties();
+        properties.setProperty("version", "1");
+        properties.setProperty("version.short", "2");
+        assertThrows(IllegalStateException.class, () -> Maps.convert(properties));
+    }
+
+    @Test
+    public void testConvertLarge() {
+        Properties properties = new Properties();
+        int n = 2 * Maps.PARALLEL_THRESHOLD;
+        for (int i = 0; i < n; ++i)
+            properties.setProperty("group" + (i % 13) + ".item" + i + ".value", Integer.toString(i));
+        Map<String, Object> nested = Maps.convert(properties);
+        assertEquals(13, nested.size());
+        for (int i = 0; i < n; i += 997)
+            assertEquals(Integer.toString(i), Maps.segmentedGet(nested, "group" + (i % 13) + ".item" + i + ".value"));
+        properties.setProperty("group3.item3", "conflict");
+        assertThrows(IllegalStateException.class, () -> Maps.convert(properties));
+    }
+
     @SuppressWarnings("unchecked")
     void assertContains(Map<String, Object> map, Map<String, Object> partial) {
         partial.keySet().forEach((String key) -> {
@@ -0,0 +1,82 @@
+package com.brambolt.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class PersistentMapTest {
+
+    /**
+     * A key with few distinct hash codes, to produce hash collisions.
+     */
+    static class Colliding {
+
+        final int value;
+
+        Colliding(int value) {
+            this.value = value;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof Colliding && value == ((Colliding) other).value;
+        }
+
+        @Override
+        public int hashCode() {
+            return value % 7;
+        }
+    }
+
+    @Test
+    public void testPlusAndMinus() {
+        Random random = new Random(17);
+        Map<Object, Integer> expected = new HashMap<>();
+        PersistentMap<Object, Integer> actual = PersistentMap.empty();
+        for (int i = 0; i < 20000; ++i) {
+            int n = random.nextInt(2000);
+            Object key = 0 == n % 3 ? new Colliding(n) : Integer.valueOf(n);
+            if (random.nextInt(4) == 0) {
+                expected.remove(key);
+                actual = actual.minus(key);
+            } else {
+                expected.put(key, i);
+                actual = actual.plus(key, i);
+            }
+        }
+        assertEquals(expected.size(), actual.size());
+        assertEquals(expected, actual);
+        assertEquals(actual, expected);
+        assertEquals(expected.hashCode(), actual.hashCode());
+    }
+
+    @Test
+    public void testUpdatesDoNotChangeOriginal() {
+        PersistentMap<String, Integer> original = PersistentMap.<String, Integer>empty().plus("a", 1).plus("b", 2);
+        PersistentMap<String, Integer> updated = original.plus("a", 3).minus("b").plus("c", 4);
+        assertEquals(2, original.size());
+        assertEquals(1, original.get("a").intValue());
+        assertEquals(2, original.get("b").intValue());
+        assertFalse(original.containsKey("c"));
+        assertEquals(2, updated.size());
+        assertEquals(3, updated.get("a").intValue());
+        assertNull(updated.get("b"));
+    }
+
+    @Test
+    public void testUnchangedUpdatesReturnSameMap() {
+        Integer one = 1;
+        PersistentMap<String, Integer> map = PersistentMap.<String, Integer>empty().plus("a", one);
+        assertSame(map, map.plus("a", one));
+        assertSame(map, map.minus("b"));
+        assertTrue(map.minus("a").isEmpty());
+    }
+}
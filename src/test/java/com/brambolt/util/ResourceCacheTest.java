@@ -0,0 +1,69 @@
+package com.brambolt.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ResourceCacheTest {
+
+    public static final String TEXT_RESOURCE_PATH = "com/brambolt/util/text-resource.txt";
+
+    private final ClassLoader loader = ResourceCacheTest.class.getClassLoader();
+
+    @Test
+    public void testGetResource() {
+        ResourceCache cache = new ResourceCache();
+        URL url = cache.getResource(loader, TEXT_RESOURCE_PATH);
+        assertNotNull(url);
+        assertSame(url, cache.getResource(loader, TEXT_RESOURCE_PATH));
+        assertEquals(1L, cache.getHitCount());
+        assertEquals(1L, cache.getMissCount());
+        assertEquals(0.5, cache.getHitRate());
+    }
+
+    @Test
+    public void testGetResourceNotFound() {
+        ResourceCache cache = new ResourceCache();
+        assertNull(cache.getResource(loader, "bad path"));
+        assertNull(cache.getResource(loader, "bad path"));
+        assertEquals(1, cache.size());
+        assertEquals(1L, cache.getAbsentHitCount());
+    }
+
+    @Test
+    public void testStreamPinned() throws IOException {
+        ResourceCache cache = new ResourceCache(16, 1024 * 1024);
+        String first;
+        try (InputStream is = cache.stream(loader, TEXT_RESOURCE_PATH)) {
+            first = Streams.scan(is, UTF_8);
+        }
+        try (InputStream is = cache.stream(loader, TEXT_RESOURCE_PATH)) {
+            assertEquals(first, Streams.scan(is, UTF_8));
+        }
+        assertTrue(first.contains("Some text to scan..."));
+        assertNull(cache.stream(loader, "bad path"));
+    }
+
+    @Test
+    public void testInvalidateAndEviction() {
+        ResourceCache cache = new ResourceCache(1, 0);
+        cache.getResource(loader, TEXT_RESOURCE_PATH);
+        cache.getResource(loader, "bad path");
+        assertEquals(1, cache.size());
+        assertEquals(1L, cache.getEvictionCount());
+        cache.invalidate(loader, "bad path");
+        assertEquals(0, cache.size());
+        cache.getResource(loader, TEXT_RESOURCE_PATH);
+        cache.invalidate(loader);
+        assertEquals(0, cache.size());
+    }
+}
@@ -0,0 +1,112 @@
+package com.brambolt.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static com.brambolt.util.ResourceCacheTest.TEXT_RESOURCE_PATH;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class ResourceFilesTest {
+
+    static final String TEMPLATE_RESOURCE_PATH = "com/brambolt/util/template-resource.txt";
+
+    @Test
+    public void testCreate() throws IOException {
+        File dir = Files.createTempDirectory("resource-files").toFile();
+        try {
+            List<ResourceFiles.Target> targets = new ArrayList<>();
+            for (int i = 0; i < 8; ++i)
+                targets.add(new ResourceFiles.Target(TEMPLATE_RESOURCE_PATH, new File(dir, i + ".txt")));
+            targets.add(new ResourceFiles.Target("bad path", new File(dir, "bad.txt")));
+            Map<String, Object> bindings = Collections.singletonMap("name", 17);
+            List<ResourceFiles.Result> results = ResourceFiles.create(targets, bindings, UTF_8, 4);
+            assertEquals(targets.size(), results.size());
+            for (int i = 0; i < 8; ++i) {
+                ResourceFiles.Result result = results.get(i);
+                assertSame(targets.get(i), result.target);
+                assertEquals(ResourceFiles.Status.CREATED, result.status);
+                assertEquals("Hello 17, here is some text to scan...\n",
+                    new String(Files.readAllBytes(result.target.targetFile.toPath()), UTF_8));
+            }
+            ResourceFiles.Result failed = results.get(8);
+            assertEquals(ResourceFiles.Status.FAILED, failed.status);
+            assertNotNull(failed.failure);
+            // A single file is created with the same content:
+            File single = Resources.createFileFromResource(TEMPLATE_RESOURCE_PATH, new File(dir, "single.txt"), bindings, UTF_8);
+            assertEquals("Hello 17, here is some text to scan...\n", new String(Files.readAllBytes(single.toPath()), UTF_8));
+        } finally {
+            delete(dir);
+        }
+    }
+
+    @Test
+    public void testUpdate() throws IOException {
+        File dir = Files.createTempDirectory("resource-files").toFile();
+        try {
+            String content = Resources.scan(TEXT_RESOURCE_PATH);
+            File unchanged = write(new File(dir, "unchanged.txt"), content);
+            FileTime modified = FileTime.fromMillis(1000000000000L);
+            Files.setLastModifiedTime(unchanged.toPath(), modified);
+            File differs = write(new File(dir, "differs.txt"), content.replace('t', 'T'));
+            File longer = write(new File(dir, "longer.txt"), content + " and more");
+            File shorter = write(new File(dir, "shorter.txt"), content.substring(0, 4));
+            File missing = new File(dir, "missing.txt");
+            List<ResourceFiles.Target> targets = new ArrayList<>();
+            for (File file : Arrays.asList(unchanged, differs, longer, shorter, missing))
+                targets.add(new ResourceFiles.Target(TEXT_RESOURCE_PATH, file));
+            List<ResourceFiles.Result> results = ResourceFiles.update(targets, Collections.emptyMap(), UTF_8, 2);
+            assertEquals(ResourceFiles.Status.UNCHANGED, results.get(0).status);
+            assertEquals(modified, Files.getLastModifiedTime(unchanged.toPath()));
+            assertEquals(1, ResourceFiles.count(results, ResourceFiles.Status.UNCHANGED));
+            assertEquals(4, ResourceFiles.count(results, ResourceFiles.Status.CREATED));
+            for (ResourceFiles.Target target : targets)
+                assertEquals(content, new String(Files.readAllBytes(target.targetFile.toPath()), UTF_8));
+            results = ResourceFiles.update(targets, Collections.emptyMap(), UTF_8, 2);
+            assertEquals(targets.size(), ResourceFiles.count(results, ResourceFiles.Status.UNCHANGED));
+        } finally {
+            delete(dir);
+        }
+    }
+
+    @Test
+    public void testUpdateFailure() throws IOException {
+        File dir = Files.createTempDirectory("resource-files").toFile();
+        try {
+            String content = Resources.scan(TEXT_RESOURCE_PATH);
+            File existing = write(new File(dir, "existing.txt"), content);
+            // A binding without a value fails the rendering:
+            Map<String, Object> bindings = Collections.singletonMap("name", null);
+            assertThrows(IllegalStateException.class,
+                () -> Resources.updateFileFromResource(TEMPLATE_RESOURCE_PATH, existing, bindings, UTF_8));
+            assertEquals(content, new String(Files.readAllBytes(existing.toPath()), UTF_8));
+        } finally {
+            delete(dir);
+        }
+    }
+
+    private static File write(File file, String content) throws IOException {
+        Files.write(file.toPath(), content.getBytes(UTF_8));
+        return file;
+    }
+
+    private static void delete(File dir) throws IOException {
+        File[] files = dir.listFiles();
+        if (null != files)
+            for (File file : files)
+                Files.delete(file.toPath());
+        Files.delete(dir.toPath());
+    }
+}
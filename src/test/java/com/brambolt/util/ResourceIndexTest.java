@@ -0,0 +1,93 @@
+package com.brambolt.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+import static com.brambolt.util.ResourcesTest.TEXT_RESOURCE_PATH;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ResourceIndexTest {
+
+    private final ClassLoader loader = ResourceIndexTest.class.getClassLoader();
+
+    @Test
+    public void testOfPackageFromDirectory() throws IOException {
+        ResourceIndex index = ResourceIndex.ofPackage(loader, "com.brambolt.util");
+        assertTrue(index.contains(TEXT_RESOURCE_PATH));
+        assertTrue(index.scan(TEXT_RESOURCE_PATH, UTF_8).contains("Some text to scan..."));
+    }
+
+    @Test
+    public void testOfPackageFromJar() throws IOException {
+        Path jar = Files.createTempFile("resources", ".jar");
+        try {
+            try (JarOutputStream out = new JarOutputStream(Files.newOutputStream(jar))) {
+                for (String name : Arrays.asList("a/b/", "a/b/one.txt", "a/b/c/two.txt", "a/other.txt")) {
+                    out.putNextEntry(new JarEntry(name));
+                    if (!name.endsWith("/"))
+                        out.write(name.getBytes(UTF_8));
+                    out.closeEntry();
+                }
+            }
+            try (URLClassLoader jarLoader = new URLClassLoader(new URL[] { jar.toUri().toURL() }, null)) {
+                ResourceIndex index = ResourceIndex.ofPackage(jarLoader, "a.b");
+                assertEquals(Arrays.asList("a/b/c/two.txt", "a/b/one.txt"), index.getPaths());
+                assertEquals("a/b/one.txt", index.scan("a/b/one.txt", UTF_8));
+                assertFalse(index.contains("a/other.txt"));
+            }
+        } finally {
+            Files.delete(jar);
+        }
+    }
+
+    @Test
+    public void testOfPathsSkipsMissing() throws IOException {
+        ResourceIndex index = ResourceIndex.of(loader, Arrays.asList(TEXT_RESOURCE_PATH, "bad path"));
+        assertEquals(Collections.singletonList(TEXT_RESOURCE_PATH), index.getPaths());
+        assertNull(index.stream("bad path"));
+    }
+
+    @Test
+    public void testPlus() throws IOException {
+        ResourceIndex left = ResourceIndex.of(loader, Collections.singletonList(TEXT_RESOURCE_PATH));
+        assertEquals(1, left.plus(left).size());
+        assertEquals(1, ResourceIndex.EMPTY.plus(left).size());
+        assertEquals(left.getByteCount(), left.plus(ResourceIndex.EMPTY).getByteCount());
+    }
+
+    @Test
+    public void testPreloadAgain() throws IOException {
+        Path dir = Files.createTempDirectory("resources");
+        Path resource = dir.resolve("preloaded.txt");
+        ClassLoader context = Thread.currentThread().getContextClassLoader();
+        try (URLClassLoader dirLoader = new URLClassLoader(new URL[] { dir.toUri().toURL() }, null)) {
+            Thread.currentThread().setContextClassLoader(dirLoader);
+            Files.write(resource, "old".getBytes(UTF_8));
+            Resources.preload(Collections.singletonList("preloaded.txt"));
+            assertEquals("old", Resources.scan("preloaded.txt"));
+            // The resource changes and is preloaded again:
+            Files.write(resource, "new".getBytes(UTF_8));
+            Resources.preload(Collections.singletonList("preloaded.txt"));
+            assertEquals("new", Resources.scan("preloaded.txt"));
+        } finally {
+            Thread.currentThread().setContextClassLoader(context);
+            Resources.clearPreloaded();
+            Files.deleteIfExists(resource);
+            Files.delete(dir);
+        }
+    }
+}
@@ -33,6 +33,17 @@ public class ResourcesTest {
       assertNotNull(stream(TEXT_RESOURCE_PATH));
     }
 
+    @Test
+    public void testPreload() throws IOException {
+      ResourceIndex index = Resources.preload("com.brambolt.util");
+      try {
+        assertTrue(index.contains(TEXT_RESOURCE_PATH));
+        assertEquals(index.scan(TEXT_RESOURCE_PATH, StandardCharsets.UTF_8), scan(TEXT_RESOURCE_PATH));
+      } finally {
+        Resources.clearPreloaded();
+      }
+    }
+
     @Test
     public void testStreamNotFound() {
       // There is a leading slash, and the file won't be found:
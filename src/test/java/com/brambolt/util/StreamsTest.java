@@ -3,9 +3,13 @@ package com.brambolt.util;
 
 import org.junit.jupiter.api.Test;
 
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+
 import static com.brambolt.util.Resources.stream;
 import static com.brambolt.util.ResourcesTest.TEXT_RESOURCE_PATH;
 import static com.brambolt.util.Streams.scan;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class StreamsTest {
@@ -21,4 +25,21 @@ public class StreamsTest {
         String content = scan(stream(TEXT_RESOURCE_PATH), "UTF-8");
         assertTrue(content.contains("Some text to scan..."));
     }
+
+    @Test
+    public void testScanEmpty() {
+        assertEquals("", scan(new ByteArrayInputStream(new byte[0])));
+    }
+
+    @Test
+    public void testScanLarge() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 100000; ++i)
+            sb.append("Some text to scan...\n");
+        String expected = sb.toString();
+        byte[] bytes = expected.getBytes(StandardCharsets.UTF_8);
+        assertEquals(expected, scan(new ByteArrayInputStream(bytes), StandardCharsets.UTF_8));
+        assertEquals(expected, scan(new ByteArrayInputStream(bytes), StandardCharsets.UTF_8, true));
+        assertEquals("\n", scan(new ByteArrayInputStream(new byte[] { '\n' }), StandardCharsets.UTF_8, true));
+    }
 }
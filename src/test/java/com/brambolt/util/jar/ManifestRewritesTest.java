@@ -0,0 +1,111 @@
+package com.brambolt.util.jar;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Arrays.asList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ManifestRewritesTest {
+
+    private static final String BUILT_BY = "Built-By: test";
+
+    /**
+     * Adds the built-by attribute to manifests that do not have it yet.
+     */
+    private static final Manifests ADD_BUILT_BY = new Manifests() {
+        @Override
+        public List<String> apply(List<String> lines) {
+            if (!lines.contains(BUILT_BY))
+                lines.add(BUILT_BY);
+            return lines;
+        }
+    };
+
+    private static Path createJar(String manifest) throws IOException {
+        Path path = Files.createTempFile("manifest-rewrites", ".jar");
+        try (OutputStream os = Files.newOutputStream(path);
+             ZipOutputStream zos = new ZipOutputStream(os)) {
+            zos.putNextEntry(new ZipEntry("META-INF/MANIFEST.MF"));
+            zos.write(manifest.getBytes(UTF_8));
+            zos.closeEntry();
+        }
+        return path;
+    }
+
+    private static List<String> readManifest(Path jar) throws IOException {
+        try (FileSystem fs = FileSystems.newFileSystem(jar, (ClassLoader) null)) {
+            return Manifests.readAllLines(fs);
+        }
+    }
+
+    @Test
+    public void testApply() throws IOException {
+        List<Path> jars = new ArrayList<>();
+        try {
+            Path changed = createJar("Manifest-Version: 1.0\n");
+            jars.add(changed);
+            Path unchanged = createJar("Manifest-Version: 1.0\n" + BUILT_BY + "\n");
+            jars.add(unchanged);
+            FileTime modified = FileTime.fromMillis(1000000000000L);
+            Files.setLastModifiedTime(unchanged, modified);
+            Path corrupt = Files.createTempFile("manifest-rewrites", ".jar");
+            jars.add(corrupt);
+            Files.write(corrupt, "Not a jar".getBytes(UTF_8));
+            Path last = createJar("Manifest-Version: 1.0\n");
+            jars.add(last);
+
+            List<ManifestRewrites.Result> results = ADD_BUILT_BY.applyAll(jars, 2);
+            assertEquals(jars.size(), results.size());
+            for (int i = 0; i < jars.size(); i++) {
+                assertSame(jars.get(i), results.get(i).jarPath);
+                assertTrue(0 <= results.get(i).elapsed);
+            }
+
+            assertEquals(ManifestRewrites.Status.CHANGED, results.get(0).status);
+            assertNull(results.get(0).failure);
+            assertEquals(asList("Manifest-Version: 1.0", BUILT_BY), readManifest(changed));
+
+            assertEquals(ManifestRewrites.Status.UNCHANGED, results.get(1).status);
+            assertNull(results.get(1).failure);
+            assertEquals(modified, Files.getLastModifiedTime(unchanged));
+
+            // The corrupt jar fails without stopping the jar after it:
+            assertEquals(ManifestRewrites.Status.FAILED, results.get(2).status);
+            assertNotNull(results.get(2).failure);
+            assertTrue(results.get(2).toString().contains(results.get(2).failure.toString()));
+            assertEquals(ManifestRewrites.Status.CHANGED, results.get(3).status);
+            assertEquals(asList("Manifest-Version: 1.0", BUILT_BY), readManifest(last));
+        } finally {
+            for (Path jar : jars)
+                Files.deleteIfExists(jar);
+        }
+    }
+
+    @Test
+    public void testApplyEmpty() {
+        assertTrue(ADD_BUILT_BY.applyAll(new ArrayList<>(), 4).isEmpty());
+    }
+
+    @Test
+    public void testApplyInvalidConcurrency() {
+        assertThrows(IllegalArgumentException.class, () -> ADD_BUILT_BY.applyAll(new ArrayList<>(), 0));
+    }
+}
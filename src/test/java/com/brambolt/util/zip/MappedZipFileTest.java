@@ -0,0 +1,165 @@
+package com.brambolt.util.zip;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.ClosedChannelException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+import java.util.zip.ZipOutputStream;
+
+import static com.brambolt.util.Streams.scan;
+import static com.brambolt.util.zip.ZipFilesTest.CONTENT;
+import static com.brambolt.util.zip.ZipFilesTest.PATHS;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class MappedZipFileTest {
+
+    @Test
+    public void testRead() throws IOException {
+        File file = ZipFiles.file(CONTENT, PATHS, StandardCharsets.UTF_8);
+        try (MappedZipFile zip = MappedZipFile.open(file.toPath())) {
+            assertEquals(CONTENT.length, zip.size());
+            for (int i = CONTENT.length - 1; 0 <= i; --i) {
+                ByteBuffer content = zip.read(PATHS[i]);
+                assertEquals(CONTENT[i], StandardCharsets.UTF_8.decode(content).toString());
+                assertEquals(CONTENT[i], scan(zip.getInputStream(PATHS[i]), StandardCharsets.UTF_8));
+            }
+            assertNull(zip.read("missing.txt"));
+        }
+    }
+
+    @Test
+    public void testReadStored() throws IOException {
+        Path path = Files.createTempFile("mapped-zip-file", ".zip");
+        try {
+            try (OutputStream os = Files.newOutputStream(path);
+                 ZipOutputStream zos = new ZipOutputStream(os)) {
+                for (int i = 0; i < CONTENT.length; ++i) {
+                    byte[] bytes = CONTENT[i].getBytes(StandardCharsets.UTF_8);
+                    CRC32 crc = new CRC32();
+                    crc.update(bytes);
+                    ZipEntry entry = new ZipEntry(PATHS[i]);
+                    entry.setMethod(ZipEntry.STORED);
+                    entry.setSize(bytes.length);
+                    entry.setCrc(crc.getValue());
+                    zos.putNextEntry(entry);
+                    zos.write(bytes);
+                    zos.closeEntry();
+                }
+            }
+            try (MappedZipFile zip = MappedZipFile.open(path)) {
+                for (int i = 0; i < CONTENT.length; ++i) {
+                    assertTrue(zip.getEntry(PATHS[i]).isStored());
+                    ByteBuffer content = zip.read(PATHS[i]);
+                    // A slice of the mapping rather than a heap copy:
+                    assertTrue(content.isDirect());
+                    assertTrue(content.isReadOnly());
+                    assertEquals(0, content.position());
+                    assertEquals(CONTENT[i], StandardCharsets.UTF_8.decode(content).toString());
+                    assertEquals(CONTENT[i], scan(zip.getInputStream(PATHS[i]), StandardCharsets.UTF_8));
+                }
+            }
+        } finally {
+            Files.delete(path);
+        }
+    }
+
+    private static final byte[] ZIP64_CONTENT = "Some ZIP64 text...".getBytes(StandardCharsets.UTF_8);
+
+    /**
+     * Builds an archive with one stored entry whose sizes and offset are in
+     * a ZIP64 extra field, and whose entry count, central directory size
+     * and offset are in a ZIP64 end record.
+     *
+     * @param extraLength The length of the ZIP64 extra field data, 24 when complete
+     * @param count The entry count in the ZIP64 end record
+     */
+    private static Path createZip64(int extraLength, long count) throws IOException {
+        byte[] name = "zip64.txt".getBytes(StandardCharsets.UTF_8);
+        CRC32 crc = new CRC32();
+        crc.update(ZIP64_CONTENT);
+        ByteBuffer buffer = ByteBuffer.allocate(1024).order(ByteOrder.LITTLE_ENDIAN);
+        // Local header and data:
+        buffer.putInt(0x04034b50).putShort((short) 45).putShort((short) 0).putShort((short) 0)
+            .putInt(0).putInt((int) crc.getValue()).putInt(ZIP64_CONTENT.length).putInt(ZIP64_CONTENT.length)
+            .putShort((short) name.length).putShort((short) 0).put(name).put(ZIP64_CONTENT);
+        // Central directory header, with the sizes and offset in the ZIP64 extra field:
+        ByteBuffer extra = ByteBuffer.allocate(24).order(ByteOrder.LITTLE_ENDIAN)
+            .putLong(ZIP64_CONTENT.length).putLong(ZIP64_CONTENT.length).putLong(0L);
+        int central = buffer.position();
+        buffer.putInt(0x02014b50).putShort((short) 45).putShort((short) 45).putShort((short) 0)
+            .putShort((short) 0).putInt(0).putInt((int) crc.getValue()).putInt(-1).putInt(-1)
+            .putShort((short) name.length).putShort((short) (4 + extraLength)).putShort((short) 0)
+            .putShort((short) 0).putShort((short) 0).putInt(0).putInt(-1).put(name)
+            .putShort((short) 0x0001).putShort((short) extraLength).put(extra.array(), 0, extraLength);
+        int centralSize = buffer.position() - central;
+        // ZIP64 end record and locator:
+        int zip64End = buffer.position();
+        buffer.putInt(0x06064b50).putLong(44L).putShort((short) 45).putShort((short) 45)
+            .putInt(0).putInt(0).putLong(count).putLong(count).putLong(centralSize).putLong(central);
+        buffer.putInt(0x07064b50).putInt(0).putLong(zip64End).putInt(1);
+        // End record, with the count, size and offset deferred to the ZIP64 end record:
+        buffer.putInt(0x06054b50).putShort((short) 0).putShort((short) 0)
+            .putShort((short) -1).putShort((short) -1).putInt(-1).putInt(-1).putShort((short) 0);
+        Path path = Files.createTempFile("mapped-zip-file", ".zip");
+        Files.write(path, Arrays.copyOf(buffer.array(), buffer.position()));
+        return path;
+    }
+
+    @Test
+    public void testReadZip64() throws IOException {
+        Path path = createZip64(24, 1L);
+        try (MappedZipFile zip = MappedZipFile.open(path)) {
+            assertEquals(1, zip.size());
+            MappedZipFile.Entry entry = zip.getEntry("zip64.txt");
+            assertEquals(ZIP64_CONTENT.length, entry.getSize());
+            assertEquals(ZIP64_CONTENT.length, entry.getCompressedSize());
+            assertEquals("Some ZIP64 text...", StandardCharsets.UTF_8.decode(zip.read("zip64.txt")).toString());
+        } finally {
+            Files.delete(path);
+        }
+    }
+
+    @Test
+    public void testReadZip64Corrupt() throws IOException {
+        // The extra field lacks the local header offset:
+        Path truncated = createZip64(16, 1L);
+        // More entries than fit in the central directory:
+        Path forged = createZip64(24, 1L << 40);
+        try {
+            assertThrows(ZipException.class, () -> MappedZipFile.open(truncated));
+            assertThrows(ZipException.class, () -> MappedZipFile.open(forged));
+        } finally {
+            Files.delete(truncated);
+            Files.delete(forged);
+        }
+    }
+
+    @Test
+    public void testClose() throws IOException {
+        File file = ZipFiles.file(CONTENT, PATHS, StandardCharsets.UTF_8);
+        MappedZipFile zip = MappedZipFile.open(file.toPath());
+        ByteBuffer content = zip.read(PATHS[0]);
+        MappedZipFile.Entry entry = zip.getEntry(PATHS[0]);
+        zip.close();
+        // Buffers already returned remain valid:
+        assertEquals(CONTENT[0], StandardCharsets.UTF_8.decode(content).toString());
+        assertThrows(ClosedChannelException.class, () -> zip.getRawData(entry));
+        assertThrows(ClosedChannelException.class, () -> zip.read(PATHS[0]));
+        assertFalse(zip.getNames().isEmpty());
+    }
+}
@@ -0,0 +1,191 @@
+package com.brambolt.util.zip;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.GatheringByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipInputStream;
+
+import static com.brambolt.util.Streams.scan;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ZipFilesTest {
+
+    public static final String[] CONTENT = {
+        "Some text to zip...", "", "Some more text to zip, \u00e4\u00f6..."
+    };
+
+    public static final String[] PATHS = {
+        "a.txt", "b/b.txt", "b/c/\u00e9.txt"
+    };
+
+    @Test
+    public void testParallelBytes() throws IOException {
+        byte[] bytes = ZipFiles.bytes(CONTENT, PATHS, StandardCharsets.UTF_8, ForkJoinPool.commonPool());
+        try (ZipInputStream zis = new ZipInputStream(new ByteArrayInputStream(bytes))) {
+            for (int i = 0; i < CONTENT.length; ++i) {
+                assertEquals(PATHS[i], zis.getNextEntry().getName());
+                assertEquals(CONTENT[i], scan(zis, StandardCharsets.UTF_8));
+            }
+            assertNull(zis.getNextEntry());
+        }
+    }
+
+    @Test
+    public void testParallelFile() throws IOException {
+        File file = ZipFiles.file(CONTENT, PATHS, StandardCharsets.UTF_8, true, ForkJoinPool.commonPool());
+        try (ZipFile zip = new ZipFile(file)) {
+            assertEquals(CONTENT.length, zip.size());
+            for (int i = 0; i < CONTENT.length; ++i) {
+                ZipEntry entry = zip.getEntry(PATHS[i]);
+                assertEquals(CONTENT[i], scan(zip.getInputStream(entry), StandardCharsets.UTF_8));
+            }
+        }
+    }
+
+    @Test
+    public void testParallelDuplicateEntry() {
+        assertThrows(IOException.class, () -> ZipFiles.bytes(
+            new String[] { "a", "b" }, new String[] { "a.txt", "a.txt" }, StandardCharsets.UTF_8, ForkJoinPool.commonPool()));
+    }
+
+    @Test
+    public void testParallelWindow() throws IOException {
+        int window = 2 * Runtime.getRuntime().availableProcessors();
+        String[] content = new String[4 * window];
+        String[] paths = new String[content.length];
+        Arrays.fill(content, "Some text to zip...");
+        for (int i = 0; i < paths.length; ++i)
+            paths[i] = i + ".txt";
+        AtomicInteger submitted = new AtomicInteger();
+        Executor executor = task -> {
+            submitted.incrementAndGet();
+            task.run();
+        };
+        int[] submittedBeforeWrite = { -1 };
+        OutputStream os = new OutputStream() {
+            @Override
+            public void write(int b) {
+                if (submittedBeforeWrite[0] < 0)
+                    submittedBeforeWrite[0] = submitted.get();
+            }
+        };
+        ParallelZipWriter.write(content, paths, StandardCharsets.UTF_8, os, executor);
+        // Only a window of entries is compressed before the first is written:
+        assertTrue(submittedBeforeWrite[0] <= window);
+        assertEquals(content.length, submitted.get());
+    }
+
+    @Test
+    public void testBuffer() throws IOException {
+        byte[] bytes = ZipFiles.bytes(CONTENT, PATHS, StandardCharsets.UTF_8);
+        for (boolean direct : new boolean[] { false, true }) {
+            ByteBuffer buffer = ZipFiles.buffer(CONTENT, PATHS, StandardCharsets.UTF_8, direct);
+            assertEquals(direct, buffer.isDirect());
+            byte[] copy = new byte[buffer.remaining()];
+            buffer.get(copy);
+            // The entry times may differ, so compare the size and the content:
+            assertEquals(bytes.length, copy.length);
+            assertArrayEquals(CONTENT, ZipFiles.scan(copy, StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    public void testWrite() throws IOException {
+        // Large enough to span several chunks:
+        Random random = new Random(1);
+        String[] content = new String[4];
+        String[] paths = new String[content.length];
+        for (int i = 0; i < content.length; ++i) {
+            StringBuilder builder = new StringBuilder();
+            for (int j = 0; j < 100000; ++j)
+                builder.append((char) ('a' + random.nextInt(26)));
+            content[i] = builder.toString();
+            paths[i] = i + ".txt";
+        }
+        Path path = Files.createTempFile("zip-files", ".zip");
+        try {
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+                long written = ZipFiles.write(content, paths, StandardCharsets.UTF_8, channel);
+                assertEquals(channel.size(), written);
+            }
+            byte[] bytes = Files.readAllBytes(path);
+            // The entry times may differ, so compare the size and the content:
+            assertEquals(ZipFiles.bytes(content, paths, StandardCharsets.UTF_8).length, bytes.length);
+            assertArrayEquals(content, ZipFiles.scan(bytes, StandardCharsets.UTF_8));
+        } finally {
+            Files.delete(path);
+        }
+    }
+
+    @Test
+    public void testWriteNoProgress() {
+        // A channel that accepts no bytes, like a full non-blocking channel:
+        GatheringByteChannel full = new GatheringByteChannel() {
+            @Override
+            public long write(ByteBuffer[] srcs, int offset, int length) {
+                return 0L;
+            }
+
+            @Override
+            public long write(ByteBuffer[] srcs) {
+                return 0L;
+            }
+
+            @Override
+            public int write(ByteBuffer src) {
+                return 0;
+            }
+
+            @Override
+            public boolean isOpen() {
+                return true;
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        assertThrows(IOException.class, () -> ZipFiles.write(CONTENT, PATHS, StandardCharsets.UTF_8, full));
+    }
+
+    @Test
+    public void testScan() throws IOException {
+        byte[] bytes = ZipFiles.bytes(CONTENT, PATHS, StandardCharsets.UTF_8);
+        assertArrayEquals(CONTENT, ZipFiles.scan(bytes, StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testEntries() throws IOException {
+        byte[] bytes = ZipFiles.bytes(CONTENT, PATHS, StandardCharsets.UTF_8);
+        try (Stream<ZipFiles.Entry> entries = ZipFiles.entries(new ByteArrayInputStream(bytes))) {
+            ZipFiles.Entry found = entries
+                .filter((ZipFiles.Entry entry) -> entry.getName().startsWith("b/"))
+                .findFirst()
+                .orElseThrow(IllegalStateException::new);
+            assertEquals(PATHS[1], found.getName());
+            assertEquals(CONTENT[1], scan(found.getInputStream(), StandardCharsets.UTF_8));
+        }
+    }
+}